@@ -0,0 +1,141 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.summary.ItemSummaryJob;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Список вещей владельца с 1 тыс. и 10 тыс. предметов: чтение из item_summary против выборки броней и комментариев.
+// Владелец - пользователь 1, остальные пользователи бронируют и комментируют
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ItemSummaryBenchmark {
+    private static final int USERS = 200;
+    private static final int BOOKINGS_PER_ITEM = 10;
+    private static final int COMMENTS_PER_ITEM = 20;
+    private static final int PAGE = 100;
+    private static final int BATCH = 10_000;
+    private static final String[] STATUSES = {"APPROVED", "APPROVED", "WAITING", "REJECTED"};
+
+    @Param({"1000", "10000"})
+    private int ownerItems;
+
+    @Param({"true", "false"})
+    private boolean summary;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private long owner;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // Аргументы командной строки, а не properties(): они должны перекрыть application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:summary" + ownerItems + summary + ";DB_CLOSE_DELAY=-1",
+                        "--shareit.items.summary.enabled=" + summary,
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        seed(context.getBean(JdbcTemplate.class));
+        // Данные записаны в обход сервисов: индексы и сводки строятся заново
+        context.getBean(BookingTimeline.class).rebuild();
+        context.getBean(ItemOwnerIndex.class).rebuild();
+        if (summary) {
+            context.getBean(ItemSummaryJob.class).rebuild();
+        }
+        itemService = context.getBean(ItemService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<ItemDtoFull> getAllUsersItemsFirstPage() {
+        return itemService.getAllUsersItems(owner, 0, PAGE);
+    }
+
+    @Benchmark
+    public Collection<ItemDtoFull> getAllUsersItemsLastPage() {
+        return itemService.getAllUsersItems(owner, ownerItems - PAGE, PAGE);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        LocalDateTime base = LocalDateTime.now().minusMonths(6);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            rows.add(new Object[]{"user" + i, "user" + i + "@mail.ru"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (name, email) values (?, ?)", rows);
+        // id выдаются последовательностью блоками, поэтому не идут подряд: ссылки строятся по прочитанным id
+        List<Long> users = jdbcTemplate.queryForList("select id from users order by id", Long.class);
+        owner = users.get(0);
+
+        rows.clear();
+        for (int i = 1; i <= ownerItems; i++) {
+            rows.add(new Object[]{"item " + i, "description " + i, owner});
+        }
+        jdbcTemplate.batchUpdate("insert into items (name, description, is_available, owner_id) values (?, ?, true, ?)", rows);
+        List<Long> items = jdbcTemplate.queryForList("select id from items order by id", Long.class);
+
+        rows.clear();
+        for (int i = 0; i < ownerItems * COMMENTS_PER_ITEM; i++) {
+            rows.add(new Object[]{"comment " + i, items.get(i % ownerItems), users.get(1 + i % (USERS - 1)), Timestamp.valueOf(base)});
+            if (rows.size() == BATCH) {
+                insert(jdbcTemplate, "insert into comments (text, item_id, author_id, created) values (?, ?, ?, ?)", rows);
+            }
+        }
+        insert(jdbcTemplate, "insert into comments (text, item_id, author_id, created) values (?, ?, ?, ?)", rows);
+
+        // Бронирования каждого предмета покрывают полгода до и после текущего момента
+        long daysStep = 365 / BOOKINGS_PER_ITEM;
+        for (int i = 0; i < ownerItems * BOOKINGS_PER_ITEM; i++) {
+            LocalDateTime start = base.plusDays(i / ownerItems * daysStep).plusMinutes(i % ownerItems);
+            rows.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)), items.get(i % ownerItems),
+                    users.get(1 + i % (USERS - 1)), STATUSES[i % STATUSES.length]});
+            if (rows.size() == BATCH) {
+                insert(jdbcTemplate, "insert into bookings (start_date, end_date, item_id, booker_id, status) "
+                        + "values (?, ?, ?, ?, ?)", rows);
+            }
+        }
+        insert(jdbcTemplate, "insert into bookings (start_date, end_date, item_id, booker_id, status) "
+                + "values (?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+    }
+}
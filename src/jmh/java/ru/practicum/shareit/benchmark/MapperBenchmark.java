@@ -0,0 +1,79 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.comment.dto.CommentDtoFull;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность мапперов на заранее собранных сущностях; аллокации на операцию - с профайлером -prof gc
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    private Item item;
+    private Booking lastBooking;
+    private Booking nextBooking;
+    private List<CommentDtoFull> comments;
+    private ItemRequest request;
+    private List<Item> requestItems;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = new User(1L, "owner", "owner@mail.ru");
+        User booker = new User(2L, "booker", "booker@mail.ru");
+        request = new ItemRequest(1L, "Нужна дрель", now.minusDays(3), booker);
+        item = new Item(1L, "Дрель", "Аккумуляторная дрель", true, owner, request);
+        lastBooking = new Booking(1L, now.minusDays(2), now.minusDays(1), item, booker, Status.APPROVED);
+        nextBooking = new Booking(2L, now.plusDays(1), now.plusDays(2), item, booker, Status.WAITING);
+        comments = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            comments.add(new CommentDtoFull(i, "Комментарий " + i, "booker", now.minusHours(i)));
+        }
+        requestItems = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            requestItems.add(new Item(i + 10, "Дрель " + i, "Описание " + i, true, owner, request));
+        }
+    }
+
+    @Benchmark
+    public ItemDtoFull itemToItemDtoFull() {
+        return ItemMapper.toItemDtoFull(item, lastBooking, nextBooking, comments);
+    }
+
+    @Benchmark
+    public BookingDtoFull bookingToBookingDtoFull() {
+        return BookingMapper.toBookingDtoFull(nextBooking, item);
+    }
+
+    @Benchmark
+    public ItemRequestDtoFull itemRequestToItemRequestDtoFull() {
+        return ItemRequestMapper.toItemRequestDtoFull(request, requestItems);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
+import ru.practicum.shareit.request.service.ItemRequestService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сквозные замеры методов сервисов на H2, заполненной заданным количеством бронирований.
+// Владельцы - первые OWNERS пользователей, остальные пользователи только бронируют
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+    private static final int USERS = 1_000;
+    private static final int OWNERS = 100;
+    private static final int ITEMS = 1_000;
+    private static final int REQUESTS = 1_000;
+    private static final int BATCH = 10_000;
+    private static final String[] STATUSES = {"APPROVED", "APPROVED", "WAITING", "REJECTED"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private ItemService itemService;
+    private ItemRequestService itemRequestService;
+    private long owner;
+    private long booker;
+    private long item;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark" + bookings + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        seed(context.getBean(JdbcTemplate.class));
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        itemRequestService = context.getBean(ItemRequestService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<BookingDtoFull> getUsersBookings() {
+        return bookingService.getUsersBookings("ALL", 0, 20, booker);
+    }
+
+    @Benchmark
+    public Collection<BookingDtoFull> getUsersBookingsPast() {
+        return bookingService.getUsersBookings("PAST", 0, 20, booker);
+    }
+
+    @Benchmark
+    public Collection<BookingDtoFull> getUsersItemsBookings() {
+        return bookingService.getUsersItemsBookings("ALL", 0, 20, owner);
+    }
+
+    @Benchmark
+    public Collection<ItemDtoFull> getAllUsersItems() {
+        return itemService.getAllUsersItems(owner, 0, 10);
+    }
+
+    @Benchmark
+    public ItemDtoFull getItemById() {
+        return itemService.getItemById(item, owner);
+    }
+
+    @Benchmark
+    public Collection<ItemRequestDtoFull> getAllRequests() {
+        return itemRequestService.getAllRequests(owner, 0, 20);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        LocalDateTime base = LocalDateTime.now().minusYears(1);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            rows.add(new Object[]{"user" + i, "user" + i + "@mail.ru"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (name, email) values (?, ?)", rows);
+        // id выдаются последовательностью блоками, поэтому не идут подряд: ссылки строятся по прочитанным id
+        List<Long> users = jdbcTemplate.queryForList("select id from users order by id", Long.class);
+        owner = users.get(0);
+        booker = users.get(OWNERS);
+
+        rows.clear();
+        for (int i = 1; i <= REQUESTS; i++) {
+            rows.add(new Object[]{"request " + i, users.get(OWNERS + i % (USERS - OWNERS)), Timestamp.valueOf(base.plusHours(i))});
+        }
+        jdbcTemplate.batchUpdate("insert into requests (description, requester_id, created) values (?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= ITEMS; i++) {
+            rows.add(new Object[]{"item " + i, "description " + i, users.get(i % OWNERS), 1 + i % REQUESTS});
+        }
+        jdbcTemplate.batchUpdate("insert into items (name, description, is_available, owner_id, request_id) "
+                + "values (?, ?, true, ?, ?)", rows);
+        List<Long> items = jdbcTemplate.queryForList("select id from items order by id", Long.class);
+        item = items.get(0);
+
+        rows.clear();
+        for (int i = 1; i <= ITEMS; i++) {
+            rows.add(new Object[]{"comment " + i, items.get(i - 1), users.get(OWNERS + i % (USERS - OWNERS)), Timestamp.valueOf(base)});
+        }
+        jdbcTemplate.batchUpdate("insert into comments (text, item_id, author_id, created) values (?, ?, ?, ?)", rows);
+
+        // Бронирования равномерно распределены по предметам и бронирующим и покрывают год до и после текущего момента
+        long minutesStep = Math.max(1, 2L * 365 * 24 * 60 / bookings);
+        rows.clear();
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime start = base.plusMinutes(i * minutesStep);
+            rows.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)), items.get(i % ITEMS),
+                    users.get(OWNERS + i % (USERS - OWNERS)), STATUSES[i % STATUSES.length]});
+            if (rows.size() == BATCH) {
+                insertBookings(jdbcTemplate, rows);
+            }
+        }
+        insertBookings(jdbcTemplate, rows);
+    }
+
+    private void insertBookings(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into bookings (start_date, end_date, item_id, booker_id, status) "
+                + "values (?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Модель "поток на запрос" против виртуальных потоков: REQUESTS одновременных запросов, каждый читает предмет
+// через сервис (соединение из пула на 20) и затем блокируется на ioMillis, как на сетевом вводе-выводе вне БД.
+// platform - пул из 200 потоков, как у Tomcat по умолчанию; virtual - виртуальный поток на каждый запрос.
+// Результат - запросы в секунду; p99 задержки запроса (вместе с ожиданием в очереди) печатается после каждой итерации
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+    private static final int REQUESTS = 1_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int POOL_SIZE = 20;
+
+    @Param({"platform", "virtual"})
+    private String threadModel;
+
+    @Param({"10", "200"})
+    private int ioMillis;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ExecutorService executor;
+    private Timer latency;
+    private long owner;
+    private long item;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // Аргументы командной строки, а не properties(): они должны перекрыть application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:threads;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.datasource.hikari.minimum-idle=" + POOL_SIZE,
+                        "--spring.datasource.hikari.connection-timeout=30000",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // id выдаются последовательностями users_seq и items_seq
+        jdbcTemplate.update("insert into users (name, email) values ('owner', 'owner@mail.ru')");
+        owner = jdbcTemplate.queryForObject("select id from users", Long.class);
+        jdbcTemplate.update("insert into items (name, description, is_available, owner_id) values ('item', 'description', true, ?)", owner);
+        item = jdbcTemplate.queryForObject("select id from items", Long.class);
+        itemService = context.getBean(ItemService.class);
+        executor = "virtual".equals(threadModel)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        latency = Timer.builder("request.latency")
+                .publishPercentiles(0.99)
+                .register(new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Iteration)
+    public void finishIteration() {
+        for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+            System.out.printf("(p%.0f = %.1f ms) ", percentile.percentile() * 100, percentile.value(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void requests() throws Exception {
+        List<Future<?>> futures = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long submitted = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                itemService.getItemById(item, owner);
+                Thread.sleep(ioMillis);
+                latency.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package ru.practicum.shareit.batch;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Пакетный импорт из JSON-массива: массив читается потоково, по одному элементу, и сохраняется порциями
+// по CHUNK_SIZE строк - каждая порция в своей транзакции, вставки уходят в БД JDBC-пакетами (hibernate.jdbc.batch_size).
+// Ошибочная строка не прерывает импорт: если порция не сохранилась целиком, её строки сохраняются по одной,
+// и в итог попадают только строки, которые не удалось сохранить.
+@Slf4j
+@Component
+public class BatchImporter {
+    public static final int CHUNK_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public BatchImporter(ObjectMapper objectMapper, Validator validator, EntityManager entityManager,
+                         PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Импорт массива объектов type: проверка по группе валидации group, преобразование в сущность toEntity,
+    // сохранение через repository и afterSave для каждой сохранённой сущности после коммита порции
+    public <T, E> BatchResultDto importJsonArray(InputStream body, Class<T> type, Class<?> group, Function<T, E> toEntity,
+                                                 JpaRepository<E, Long> repository, Consumer<E> afterSave) {
+        return importJsonArrayByChunks(body, type, group, values -> toEntity, repository, afterSave);
+    }
+
+    // То же, но преобразование строится заново для каждой порции по её строкам: так связанные сущности
+    // (например, запросы, на которые ссылаются предметы) загружаются одним запросом на порцию, а не на строку
+    public <T, E> BatchResultDto importJsonArrayByChunks(InputStream body, Class<T> type, Class<?> group,
+                                                         Function<List<T>, Function<T, E>> toEntities,
+                                                         JpaRepository<E, Long> repository, Consumer<E> afterSave) {
+        BatchResultDto result = new BatchResultDto();
+        result.setCompleted(true);
+        List<Row<T>> chunk = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ValidationException("Ожидается JSON-массив");
+            }
+            for (int index = 0; ; index++) {
+                JsonNode node;
+                try {
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.END_ARRAY) {
+                        break;
+                    }
+                    if (token == null) {
+                        throw new JsonParseException(parser, "массив не закрыт");
+                    }
+                    node = parser.readValueAsTree();
+                } catch (JsonProcessingException e) {
+                    result.setTotal(index + 1);
+                    result.getErrors().add(new BatchRowErrorDto(index, "Некорректный JSON: " + e.getOriginalMessage()));
+                    result.setCompleted(false);
+                    break;
+                }
+                result.setTotal(index + 1);
+                T value = parse(node, type, index, group, result);
+                if (value != null) {
+                    chunk.add(new Row<>(index, value));
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    save(chunk, toEntities, repository, afterSave, result);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new ValidationException("Не удалось прочитать тело запроса: " + e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            save(chunk, toEntities, repository, afterSave, result);
+        }
+        log.info("Импорт {} завершён: строк {}, создано {}, ошибок {}", type.getSimpleName(), result.getTotal(),
+                result.getCreated(), result.getErrors().size());
+        return result;
+    }
+
+    private <T> T parse(JsonNode node, Class<T> type, int index, Class<?> group, BatchResultDto result) {
+        T value;
+        try {
+            value = objectMapper.treeToValue(node, type);
+        } catch (JsonProcessingException e) {
+            result.getErrors().add(new BatchRowErrorDto(index, "Некорректный объект: " + e.getOriginalMessage()));
+            return null;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(value, group);
+        if (!violations.isEmpty()) {
+            result.getErrors().add(new BatchRowErrorDto(index, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "))));
+            return null;
+        }
+        return value;
+    }
+
+    private <T, E> void save(List<Row<T>> chunk, Function<List<T>, Function<T, E>> toEntities, JpaRepository<E, Long> repository,
+                             Consumer<E> afterSave, BatchResultDto result) {
+        Function<T, E> toEntity = toEntities.apply(chunk.stream()
+                .map(row -> row.value)
+                .collect(Collectors.toList()));
+        List<BatchRowErrorDto> errors = new ArrayList<>();
+        List<E> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                List<E> entities = new ArrayList<>();
+                for (Row<T> row : chunk) {
+                    try {
+                        entities.add(toEntity.apply(row.value));
+                    } catch (NotFoundException | ValidationException e) {
+                        errors.add(new BatchRowErrorDto(row.index, e.getMessage()));
+                    }
+                }
+                List<E> entitiesSaved = repository.saveAll(entities);
+                repository.flush();
+                entityManager.clear();
+                return entitiesSaved;
+            });
+        } catch (DataAccessException e) {
+            // Порция откатилась целиком: сохраняем строки по одной, чтобы найти ошибочные
+            log.debug("Порция импорта не сохранена, строки сохраняются по одной: {}", e.getMessage());
+            errors.clear();
+            saved = new ArrayList<>();
+            for (Row<T> row : chunk) {
+                try {
+                    saved.add(transactionTemplate.execute(status -> {
+                        E entity = repository.saveAndFlush(toEntity.apply(row.value));
+                        entityManager.clear();
+                        return entity;
+                    }));
+                } catch (NotFoundException | ValidationException e2) {
+                    errors.add(new BatchRowErrorDto(row.index, e2.getMessage()));
+                } catch (DataAccessException e2) {
+                    errors.add(new BatchRowErrorDto(row.index, "Строка нарушает ограничения БД (например, повтор уникального значения)"));
+                }
+            }
+        }
+        saved.forEach(afterSave);
+        result.setCreated(result.getCreated() + saved.size());
+        result.getErrors().addAll(errors);
+        result.getErrors().sort((first, second) -> Integer.compare(first.getIndex(), second.getIndex()));
+        log.info("Импорт: обработано строк {}, создано {}, ошибок {}", result.getTotal(), result.getCreated(),
+                result.getErrors().size());
+    }
+
+    private static class Row<T> {
+        private final int index;
+        private final T value;
+
+        private Row(int index, T value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.batch;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Итог пакетного импорта: сколько строк прочитано и создано, ошибки по строкам.
+// completed = false, если чтение оборвалось на синтаксической ошибке JSON (строки до неё уже сохранены)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDto {
+    private int total;
+    private int created;
+    private boolean completed;
+    @Builder.Default
+    private List<BatchRowErrorDto> errors = new ArrayList<>();
+}
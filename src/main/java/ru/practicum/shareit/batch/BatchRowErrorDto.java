@@ -0,0 +1,16 @@
+package ru.practicum.shareit.batch;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Ошибка в строке пакета: index - позиция элемента во входном JSON-массиве, начиная с 0
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRowErrorDto {
+    private int index;
+    private String message;
+}
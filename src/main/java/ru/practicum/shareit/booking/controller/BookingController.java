@@ -1,22 +1,32 @@
 package ru.practicum.shareit.booking.controller;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.stream.BookingStreamHub;
+import ru.practicum.shareit.util.CursorPage;
 
-import javax.validation.Valid;
-import javax.validation.constraints.Max;
-import javax.validation.constraints.Min;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private BookingService bookingService;
+    private BookingStreamHub bookingStreamHub;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingStreamHub bookingStreamHub) {
         this.bookingService = bookingService;
+        this.bookingStreamHub = bookingStreamHub;
     }
 
     // Создание новой брони
@@ -25,12 +35,25 @@ public class BookingController {
         return bookingService.createBooking(dto, userId);
     }
 
+    // Пакетное подтверждение или отклонение броней владельцем: результат возвращается по каждой брони
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> confirmBookings(@RequestBody List<BookingDecisionDto> decisions, @RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.confirmBookings(decisions, userId);
+    }
+
     // Подтверждение брони или отклонение
     @PatchMapping("/{bookingId}")
     public BookingDtoFull confirmBooking(@PathVariable long bookingId, @RequestParam boolean approved, @RequestHeader("X-Sharer-User-Id") long userId) {
         return bookingService.confirmBooking(bookingId, approved, userId);
     }
 
+    // Подписка на создание и подтверждение броней пользователя (как бронирующего и как владельца) по SSE
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookings(@RequestHeader("X-Sharer-User-Id") long userId) {
+        bookingService.checkUserId(userId);
+        return bookingStreamHub.subscribe(userId);
+    }
+
     // Получение информации о конкретной брони по её идентификатору.
     @GetMapping("/{bookingId}")
     public BookingDtoFull getBooking(@PathVariable long bookingId, @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -48,4 +71,25 @@ public class BookingController {
                                                             @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(100) Integer size, @RequestHeader("X-Sharer-User-Id") long userId) {
         return bookingService.getUsersItemsBookings(state, from, size, userId);
     }
+
+    // Выдача по курсору: следующая страница запрашивается по значению заголовка X-Next-Cursor
+    @GetMapping(params = "cursor")
+    public ResponseEntity<Collection<BookingDtoFull>> getUsersBookingsByCursor(@RequestParam(required = false, defaultValue = "ALL") String state, @RequestParam String cursor,
+                                                                               @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(100) Integer size, @RequestHeader("X-Sharer-User-Id") long userId) {
+        return toResponse(bookingService.getUsersBookingsByCursor(state, cursor, size, userId));
+    }
+
+    @GetMapping(path = "/owner", params = "cursor")
+    public ResponseEntity<Collection<BookingDtoFull>> getUsersItemsBookingsByCursor(@RequestParam(required = false, defaultValue = "ALL") String state, @RequestParam String cursor,
+                                                                                    @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(100) Integer size, @RequestHeader("X-Sharer-User-Id") long userId) {
+        return toResponse(bookingService.getUsersItemsBookingsByCursor(state, cursor, size, userId));
+    }
+
+    private ResponseEntity<Collection<BookingDtoFull>> toResponse(CursorPage<BookingDtoFull> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
 }
@@ -8,7 +8,7 @@ import ru.practicum.shareit.booking.util.Status;
 import ru.practicum.shareit.item.dto.ItemDtoForBooking;
 import ru.practicum.shareit.user.dto.UserDtoForBooking;
 
-import javax.validation.constraints.NotNull;
+import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Data
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.booking.util.Status;
+
+import java.time.LocalDateTime;
+
+// Бронирование без сущностей предмета и пользователя: элемент индекса BookingTimeline
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingInterval {
+    private final long id;
+    private final long itemId;
+    private final long bookerId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final Status status;
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.outbox;
+
+import lombok.*;
+import ru.practicum.shareit.booking.util.Status;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Запись исходящего журнала (outbox): сохраняется в той же транзакции, что и бронь, и удаляется
+// после доставки всем подписчикам. Идентификаторы из последовательности, чтобы вставки шли JDBC-пакетами
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "booking_events", schema = "public")
+public class BookingEvent {
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_events_seq")
+    @SequenceGenerator(name = "booking_events_seq", sequenceName = "booking_events_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+    @Column(name = "booker_id", nullable = false)
+    private Long bookerId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private BookingEventType type;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+}
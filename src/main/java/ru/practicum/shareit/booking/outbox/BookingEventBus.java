@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.outbox;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Шина событий внутри процесса: передает пачку событий всем бинам BookingEventSink по порядку (@Order).
+// Исключение подписчика прерывает доставку и возвращается ретранслятору, который повторит пачку
+@Component
+public class BookingEventBus {
+    private final ObjectProvider<BookingEventSink> sinks;
+
+    public BookingEventBus(ObjectProvider<BookingEventSink> sinks) {
+        this.sinks = sinks;
+    }
+
+    public void publish(List<BookingEventDto> events) {
+        sinks.orderedStream().forEach(sink -> sink.handle(events));
+    }
+}
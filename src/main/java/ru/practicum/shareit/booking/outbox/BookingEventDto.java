@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.util.Status;
+
+import java.time.LocalDateTime;
+
+// Событие изменения брони для подписчиков; id события позволяет подписчику отбросить повторную доставку
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEventDto {
+    private Long id;
+    private Long bookingId;
+    private Long itemId;
+    private Long ownerId;
+    private Long bookerId;
+    private BookingEventType type;
+    private Status status;
+    private LocalDateTime created;
+}
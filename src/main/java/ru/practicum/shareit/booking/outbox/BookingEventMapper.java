@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.outbox;
+
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+public class BookingEventMapper {
+    public static BookingEvent toBookingEvent(Booking booking, BookingEventType type, LocalDateTime created) {
+        return BookingEvent.builder()
+                .bookingId(booking.getId())
+                .itemId(booking.getItem().getId())
+                .ownerId(booking.getItem().getUser().getId())
+                .bookerId(booking.getBooker().getId())
+                .type(type)
+                .status(booking.getStatus())
+                .created(created)
+                .build();
+    }
+
+    public static BookingEventDto toBookingEventDto(BookingEvent event) {
+        return BookingEventDto.builder()
+                .id(event.getId())
+                .bookingId(event.getBookingId())
+                .itemId(event.getItemId())
+                .ownerId(event.getOwnerId())
+                .bookerId(event.getBookerId())
+                .type(event.getType())
+                .status(event.getStatus())
+                .created(event.getCreated())
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+    // Недоставленные события в порядке записи, не больше одной пачки
+    @Query("select e from BookingEvent as e order by e.id")
+    List<BookingEvent> findPending(Pageable pageable);
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.outbox;
+
+import java.util.List;
+
+// Подписчик на события броней (уведомления владельцев, переиндексация, кэши доступности). Доставка
+// "хотя бы один раз": после ошибки любого подписчика пачка доставляется всем повторно, поэтому обработка
+// должна быть идемпотентной по id события
+public interface BookingEventSink {
+    void handle(List<BookingEventDto> events);
+}
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.booking.outbox;
+
+public enum BookingEventType {
+    CREATED, STATUS_CHANGED
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.booking.outbox;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+// Запись событий о бронях в outbox. Вызывается только внутри транзакции, изменяющей бронь: событие
+// фиксируется или откатывается вместе с ней
+@Component
+public class BookingOutbox {
+    private final BookingEventRepository bookingEventRepository;
+
+    public BookingOutbox(BookingEventRepository bookingEventRepository) {
+        this.bookingEventRepository = bookingEventRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Booking booking, BookingEventType type) {
+        bookingEventRepository.save(BookingEventMapper.toBookingEvent(booking, type, LocalDateTime.now()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Booking> bookings, BookingEventType type) {
+        LocalDateTime now = LocalDateTime.now();
+        bookingEventRepository.saveAll(bookings.stream()
+                .map(booking -> BookingEventMapper.toBookingEvent(booking, type, now))
+                .collect(Collectors.toList()));
+    }
+}
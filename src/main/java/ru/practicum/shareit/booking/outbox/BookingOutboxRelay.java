@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Ретранслятор outbox: забирает недоставленные события пачками, передает их в шину и удаляет доставленные.
+// Если подписчик упал или процесс остановился между доставкой и удалением, пачка будет доставлена повторно
+// (доставка "хотя бы один раз"). Рассчитан на один экземпляр приложения, одновременный запуск внутри процесса
+// исключен блокировкой. Метрики: shareit.outbox.events.published (пропускная способность),
+// shareit.outbox.lag (от записи события до доставки), shareit.outbox.relay.failures
+@Slf4j
+@Component
+public class BookingOutboxRelay {
+    private final BookingEventRepository bookingEventRepository;
+    private final BookingEventBus bookingEventBus;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean enabled;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter published;
+    private final Counter failures;
+    private final Timer lag;
+
+    public BookingOutboxRelay(BookingEventRepository bookingEventRepository, BookingEventBus bookingEventBus,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${shareit.bookings.outbox.relay.batch-size:500}") int batchSize,
+                              @Value("${shareit.bookings.outbox.relay.enabled:true}") boolean enabled) {
+        this.bookingEventRepository = bookingEventRepository;
+        this.bookingEventBus = bookingEventBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.enabled = enabled;
+        this.published = Counter.builder("shareit.outbox.events.published")
+                .description("События броней, доставленные подписчикам")
+                .register(meterRegistry);
+        this.failures = Counter.builder("shareit.outbox.relay.failures")
+                .description("Неудачные попытки доставки пачки событий")
+                .register(meterRegistry);
+        this.lag = Timer.builder("shareit.outbox.lag")
+                .description("Задержка от записи события до доставки подписчикам")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.outbox.relay.interval:500}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("Доставка событий броней не удалась, будет повторена: {}", e.getMessage(), e);
+        }
+    }
+
+    // Доставляет все накопившиеся события и возвращает их количество; пачка, на которой упал подписчик,
+    // остается в outbox, а исключение пробрасывается
+    public int drain() {
+        if (!lock.tryLock()) {
+            return 0;
+        }
+        try {
+            int total = 0;
+            int delivered;
+            do {
+                delivered = drainBatch();
+                total += delivered;
+            } while (delivered == batchSize);
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int drainBatch() {
+        List<BookingEventDto> events = transactionTemplate.execute(status ->
+                bookingEventRepository.findPending(PageRequest.of(0, batchSize))
+                        .stream()
+                        .map(BookingEventMapper::toBookingEventDto)
+                        .collect(Collectors.toList()));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            bookingEventBus.publish(events);
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        }
+        transactionTemplate.executeWithoutResult(status -> bookingEventRepository.deleteAllByIdInBatch(events.stream()
+                .map(BookingEventDto::getId)
+                .collect(Collectors.toList())));
+        LocalDateTime now = LocalDateTime.now();
+        events.forEach(event -> lag.record(Duration.between(event.getCreated(), now)));
+        published.increment(events.size());
+        return events.size();
+    }
+}
@@ -1,32 +1,60 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.util.Status;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBookerIdOrderByStartDesc(long userId);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findWithItemAndBookerById(long id);
 
-    @Query("select b FROM Booking as b join Item as i on b.item = i WHERE i.user.id = :userId ORDER BY b.start DESC")
-    List<Booking> findByOwnerSortByStart(long userId);
-
-    Booking getFirstByItemIdAndEndBeforeOrderByEnd(long itemId, LocalDateTime date);
+    // Брони вместе с предметами одним запросом - для проверки владельца при пакетном подтверждении
+    @Query("select b from Booking as b join fetch b.item where b.id in :ids")
+    List<Booking> findAllWithItemByIdIn(Collection<Long> ids);
 
-    Booking getTopByItemIdAndStartAfterOrderByStart(long itemId, LocalDateTime date);
+    // Пересечение полуинтервалов [start, end) с бронированиями предмета в указанных статусах
+    boolean existsByItemIdAndStatusInAndStartBeforeAndEndAfter(long itemId, Collection<Status> statuses,
+                                                              LocalDateTime end, LocalDateTime start);
 
-    Booking getFirstByItemIdAndStatusNotAndStartBeforeOrderByEndDesc(long itemId, Status status, LocalDateTime date);
+    @Query("select b FROM Booking as b join Item as i on b.item = i WHERE i.user.id = :userId ORDER BY b.start DESC")
+    List<Booking> findByOwnerSortByStart(long userId);
 
-    Booking getFirstByItemIdAndStatusNotAndStartAfterOrderByStart(long itemId, Status status, LocalDateTime date);
+    // Последнее начавшееся и ближайшее будущее бронирование каждого предмета без отклонённых - те же, что выдает
+    // BookingTimeline; для списков предметов без индекса и пересчета сводок item_summary
+    @Query(value = "select id, start_date, end_date, item_id, booker_id, status " +
+            "from (select b.*, row_number() over (partition by b.item_id order by b.start_date desc, b.id desc) as rn " +
+            "from bookings as b " +
+            "where b.item_id in (:itemIds) and b.status <> 'REJECTED' and b.start_date < :date) as last_bookings " +
+            "where rn = 1 " +
+            "union all " +
+            "select id, start_date, end_date, item_id, booker_id, status " +
+            "from (select b.*, row_number() over (partition by b.item_id order by b.start_date, b.id) as rn " +
+            "from bookings as b " +
+            "where b.item_id in (:itemIds) and b.status <> 'REJECTED' and b.start_date > :date) as next_bookings " +
+            "where rn = 1",
+            nativeQuery = true)
+    List<Booking> findLastAndNextNotRejectedByItemIds(Collection<Long> itemIds, LocalDateTime date);
+
+    // Последнее и ближайшее бронирование предмета выбираются по началу (при равенстве - по id), как в BookingTimeline
+    Booking getFirstByItemIdAndStatusNotAndStartBeforeOrderByStartDescIdDesc(long itemId, Status status, LocalDateTime date);
+
+    Booking getFirstByItemIdAndStatusNotAndStartAfterOrderByStartAscIdAsc(long itemId, Status status, LocalDateTime date);
 
     Booking findFirstByBookerId(long userId);
 
-    List<Booking> findAllByBookerId(long userId, Pageable pageable);
+    List<Booking> findAllByItemIdAndStatusInAndStartBeforeAndEndAfterOrderByStart(long itemId, Collection<Status> statuses,
+                                                                                  LocalDateTime end, LocalDateTime start);
 
-    @Query("select b FROM Booking as b join Item as i on b.item = i WHERE i.user.id = :userId")
-    List<Booking> findByOwner(long userId, Pageable pageable);
+    // Бронирования без загрузки сущностей - для построения индекса BookingTimeline
+    @Query("select new ru.practicum.shareit.booking.dto.BookingInterval(b.id, b.item.id, b.booker.id, b.start, b.end, b.status) " +
+            "from Booking as b where b.status <> :status")
+    List<BookingInterval> findIntervalsByStatusNot(Status status);
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.repository;
+
+import com.querydsl.core.types.Predicate;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+    // Бронирования, удовлетворяющие условию, по убыванию (start, id) сразу в BookingDtoFull: фильтр и лимит применяются
+    // в одном запросе, выбираются только нужные колонки, сущности в контекст не попадают
+    List<BookingDtoFull> findBookingDtos(Predicate predicate, long offset, int limit);
+}
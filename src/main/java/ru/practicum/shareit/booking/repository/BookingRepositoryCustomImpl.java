@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.item.dto.ItemDtoForBooking;
+import ru.practicum.shareit.user.dto.UserDtoForBooking;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+
+import static ru.practicum.shareit.booking.model.QBooking.booking;
+import static ru.practicum.shareit.item.model.QItem.item;
+import static ru.practicum.shareit.user.model.QUser.user;
+
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    private final JPAQueryFactory queryFactory;
+
+    public BookingRepositoryCustomImpl(EntityManager entityManager) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    @Override
+    public List<BookingDtoFull> findBookingDtos(Predicate predicate, long offset, int limit) {
+        return queryFactory
+                .select(Projections.constructor(BookingDtoFull.class,
+                        booking.id,
+                        booking.start,
+                        booking.end,
+                        Projections.constructor(ItemDtoForBooking.class, item.id, item.name),
+                        Projections.constructor(UserDtoForBooking.class, user.id, user.name),
+                        booking.status))
+                .from(booking)
+                .innerJoin(booking.item, item)
+                .innerJoin(booking.booker, user)
+                .where(predicate)
+                .orderBy(booking.start.desc(), booking.id.desc())
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+}
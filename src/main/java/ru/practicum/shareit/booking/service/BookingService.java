@@ -1,20 +1,30 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.util.CursorPage;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface BookingService {
     BookingDtoFull createBooking(BookingDto dto, long userId);
 
     BookingDtoFull confirmBooking(long bookingId, boolean approval, long userId);
 
+    List<BookingDecisionResultDto> confirmBookings(List<BookingDecisionDto> decisions, long userId);
+
     BookingDtoFull getBooking(long bookingId, long userId);
 
     Collection<BookingDtoFull> getUsersBookings(String state, Integer from, Integer size, long userId);
 
     Collection<BookingDtoFull> getUsersItemsBookings(String state, Integer from, Integer size, long userId);
 
+    CursorPage<BookingDtoFull> getUsersBookingsByCursor(String state, String cursor, Integer size, long userId);
+
+    CursorPage<BookingDtoFull> getUsersItemsBookingsByCursor(String state, String cursor, Integer size, long userId);
+
     void checkUserId(long userId);
 }
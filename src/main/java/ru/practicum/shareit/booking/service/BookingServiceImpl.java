@@ -1,63 +1,125 @@
 package ru.practicum.shareit.booking.service;
 
+import com.querydsl.core.types.dsl.BooleanExpression;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFull;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.BookingOutbox;
+import ru.practicum.shareit.booking.model.QBooking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
+import ru.practicum.shareit.item.summary.ItemSummaryService;
 import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.exception.WrongAccessException;
 import ru.practicum.shareit.exception.WrongStateException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.CursorPage;
+import ru.practicum.shareit.util.PageCursor;
+import ru.practicum.shareit.util.Paging;
 import ru.practicum.shareit.item.repository.ItemRepository;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class BookingServiceImpl implements BookingService {
+    // Статусы, при которых бронь занимает предмет; те же статусы в ограничении bookings_no_overlap
+    private static final List<Status> ACTIVE_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+    private static final int MAX_BOOKING_ATTEMPTS = 5;
+    private static final long BACKOFF_BASE_MS = 10;
+    private static final long BACKOFF_MAX_MS = 200;
+    private static final int MAX_DECISIONS = 500;
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private BookingRepository bookingRepository;
     private UserRepository userRepository;
     private ItemRepository itemRepository;
+    private TransactionTemplate transactionTemplate;
+    private BookingTimeline bookingTimeline;
+    private BookingOutbox bookingOutbox;
+    private ItemOwnerIndex itemOwnerIndex;
+    private ItemSummaryService itemSummaryService;
+    private boolean versionCheck;
 
     @Autowired
-    public BookingServiceImpl(BookingRepository bookingRepository, UserRepository userRepository, ItemRepository itemRepository) {
+    public BookingServiceImpl(BookingRepository bookingRepository, UserRepository userRepository, ItemRepository itemRepository,
+                              PlatformTransactionManager transactionManager, BookingTimeline bookingTimeline,
+                              BookingOutbox bookingOutbox, ItemOwnerIndex itemOwnerIndex, ItemSummaryService itemSummaryService,
+                              @Value("${shareit.bookings.version-check.enabled:false}") boolean versionCheck) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookingTimeline = bookingTimeline;
+        this.bookingOutbox = bookingOutbox;
+        this.itemOwnerIndex = itemOwnerIndex;
+        this.itemSummaryService = itemSummaryService;
+        this.versionCheck = versionCheck;
     }
 
     // Метод для создания новой брони
-    @Transactional
     public BookingDtoFull createBooking(BookingDto dto, long userId) {
-        // Проверка наличия пользователя в базе данных
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        // Каждая попытка выполняется в отдельной транзакции; конкурентное бронирование того же предмета
+        // приводит к откату и повтору с экспоненциальной задержкой. Из нарушений ограничений повторяется только
+        // bookings_no_overlap: ошибка внешнего ключа или NOT NULL при повторе не исчезнет
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> tryCreateBooking(dto, userId));
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (e instanceof DataIntegrityViolationException && !isOverlapViolation(e)) {
+                    throw e;
+                }
+                if (attempt == MAX_BOOKING_ATTEMPTS) {
+                    throw new ConflictException("Не удалось забронировать предмет с id " + dto.getItemId() + ", повторите запрос");
+                }
+                backoff(attempt);
+            }
         }
+    }
 
-        // Проверка наличия предмета в базе данных
-        if (!itemRepository.existsById(dto.getItemId())) {
-            throw new NotFoundException("Предмет с id " + dto.getItemId() + " не найден");
-        }
+    private BookingDtoFull tryCreateBooking(BookingDto dto, long userId) {
+        // Загрузка пользователя и предмета; все проверки ниже выполняются по загруженным сущностям
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден"));
+        Item item = itemRepository.findById(dto.getItemId())
+                .orElseThrow(() -> new NotFoundException("Предмет с id " + dto.getItemId() + " не найден"));
 
         // Проверка доступности предмета
-        if (!itemRepository.findById(dto.getItemId()).get().getIsAvailable()) {
+        if (!item.getIsAvailable()) {
             throw new WrongAccessException("Предмет с id " + dto.getItemId() + " недоступен");
         }
 
         // Проверка на попытку бронирования своего собственного предмета
-        if (itemRepository.findById(dto.getItemId()).get().getUser().getId() == userId) {
+        if (item.getUser().getId() == userId) {
             throw new NotFoundException("Нельзя арендовать свой предмет");
         }
 
@@ -66,21 +128,60 @@ public class BookingServiceImpl implements BookingService {
             throw new WrongAccessException("Дата окончания бронирования не может быть позднее даты начала");
         }
 
+        // Быстрый отказ по индексу бронирований без запроса к БД; окончательно пересечения проверяются запросом ниже
+        if (bookingTimeline.isReady() && bookingTimeline.findOverlapping(item.getId(), dto.getStart(), dto.getEnd())
+                .stream()
+                .anyMatch(interval -> ACTIVE_STATUSES.contains(interval.getStatus()))) {
+            throw new ConflictException("Предмет с id " + item.getId() + " уже забронирован на это время");
+        }
+
+        // Без ограничения bookings_no_overlap (H2) версия читается до проверки пересечений: если между проверкой
+        // и вставкой предмет забронируют, версия изменится и попытка будет повторена. В PostgreSQL пересечение
+        // отклоняет само ограничение, и брони одного предмета на разное время не ждут друг друга
+        long version = versionCheck ? itemRepository.getBookingVersion(item.getId()) : 0;
+        if (bookingRepository.existsByItemIdAndStatusInAndStartBeforeAndEndAfter(item.getId(), ACTIVE_STATUSES,
+                dto.getEnd(), dto.getStart())) {
+            throw new ConflictException("Предмет с id " + item.getId() + " уже забронирован на это время");
+        }
+
         // Установка пользователя-заказчика и создание объекта Booking
         dto.setBooker(userId);
-        Booking booking = BookingMapper.toBooking(dto, itemRepository.findById(dto.getItemId()).get(), userRepository.findById(userId).get());
+        Booking booking = BookingMapper.toBooking(dto, item, booker);
 
         // Установка статуса бронирования на ожидание и сохранение в репозитории
         booking.setStatus(Status.WAITING);
         booking = bookingRepository.save(booking);
-
-        // Получение информации о предмете
-        Item item = itemRepository.findById(dto.getItemId()).get();
+        if (versionCheck && itemRepository.incrementBookingVersion(item.getId(), version) == 0) {
+            throw new OptimisticLockingFailureException("Предмет с id " + item.getId() + " забронирован параллельно");
+        }
+        bookingOutbox.record(booking, BookingEventType.CREATED);
+        bookingTimeline.update(booking);
+        itemSummaryService.bookingsChanged(List.of(item.getId()));
 
         // Возврат полной информации о созданной брони
         return BookingMapper.toBookingDtoFull(booking, item);
     }
 
+    // Нарушение ограничения-исключения (SQLSTATE 23P01) - его в PostgreSQL дает только bookings_no_overlap
+    private boolean isOverlapViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) {
+        long delay = Math.min(BACKOFF_BASE_MS << (attempt - 1), BACKOFF_MAX_MS);
+        try {
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Бронирование прервано");
+        }
+    }
+
     // Метод для подтверждения брони или отклонения
     @Transactional
     public BookingDtoFull confirmBooking(long bookingId, boolean approved, long userId) {
@@ -89,25 +190,89 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException("Пользователь с id " + userId + " не найден");
         }
 
-        // Проверка наличия брони в базе данных
-        if (!bookingRepository.existsById(bookingId)) {
-            throw new NotFoundException("Букинг с id " + bookingId + " не найден");
-        }
-
-        // Получение информации о бронировании
-        Booking booking = bookingRepository.findById(bookingId).get();
+        // Получение брони вместе с предметом и бронирующим
+        Booking booking = bookingRepository.findWithItemAndBookerById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Букинг с id " + bookingId + " не найден"));
 
         // Проверка прав доступа: только владелец предмета может подтверждать/отклонять
-        if (booking.getItem().getUser().getId() != userId) {
+        if (!itemOwnerIndex.isOwner(userId, booking.getItem().getId())) {
             throw new NotFoundException("Недостаточно прав для показа");
         }
 
         // Проверка статуса бронирования и возможность подтверждения/отклонения
+        applyDecision(booking, approved);
+
+        // Сохранение обновленной информации о бронировании
+        booking = bookingRepository.save(booking);
+        bookingOutbox.record(booking, BookingEventType.STATUS_CHANGED);
+        bookingTimeline.update(booking);
+        itemSummaryService.bookingsChanged(List.of(booking.getItem().getId()));
+
+        // Возврат обновленной информации о бронировании
+        return BookingMapper.toBookingDtoFull(booking, booking.getItem());
+    }
+
+    // Метод для пакетного подтверждения или отклонения броней владельцем: брони и их предметы загружаются
+    // одним запросом, изменённые статусы уходят в БД одним JDBC-пакетом UPDATE при коммите.
+    // Ошибка по одной брони не мешает остальным - она возвращается в результате по этой брони
+    @Transactional
+    public List<BookingDecisionResultDto> confirmBookings(List<BookingDecisionDto> decisions, long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+        if (decisions.size() > MAX_DECISIONS) {
+            throw new ValidationException("За один запрос можно обработать не больше " + MAX_DECISIONS + " броней");
+        }
+
+        Set<Long> ids = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = bookingRepository.findAllWithItemByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        List<BookingDecisionResultDto> results = new ArrayList<>();
+        List<Booking> changed = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            Long bookingId = decision.getBookingId();
+            Booking booking = bookingId == null ? null : bookings.get(bookingId);
+            if (bookingId == null || decision.getApproved() == null) {
+                results.add(new BookingDecisionResultDto(bookingId, null, "Не указаны bookingId или approved"));
+            } else if (!seen.add(bookingId)) {
+                results.add(new BookingDecisionResultDto(bookingId, null, "Букинг с id " + bookingId + " указан повторно"));
+            } else if (booking == null || !itemOwnerIndex.isOwner(userId, booking.getItem().getId())) {
+                // Чужие брони не отличаются от несуществующих, как и в confirmBooking
+                results.add(new BookingDecisionResultDto(bookingId, null, "Букинг с id " + bookingId + " не найден"));
+            } else {
+                try {
+                    Status before = booking.getStatus();
+                    applyDecision(booking, decision.getApproved());
+                    if (booking.getStatus() != before) {
+                        changed.add(booking);
+                    }
+                    results.add(new BookingDecisionResultDto(bookingId, booking.getStatus(), null));
+                } catch (WrongAccessException e) {
+                    results.add(new BookingDecisionResultDto(bookingId, booking.getStatus(), e.getMessage()));
+                }
+            }
+        }
+
+        bookingRepository.saveAll(changed);
+        bookingOutbox.recordAll(changed, BookingEventType.STATUS_CHANGED);
+        changed.forEach(bookingTimeline::update);
+        itemSummaryService.bookingsChanged(changed.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+        return results;
+    }
+
+    // Проверка статуса бронирования и перевод из ожидания в подтверждённое или отклонённое
+    private void applyDecision(Booking booking, boolean approved) {
         if (booking.getStatus().equals(Status.APPROVED) && approved || (booking.getStatus().equals(Status.REJECTED) && !approved)) {
             throw new WrongAccessException("Букинг уже подтвержден");
         }
-
-        // Если бронирование находится в статусе "ожидание", обновляем его статус
         if (booking.getStatus().equals(Status.WAITING)) {
             if (approved) {
                 booking.setStatus(Status.APPROVED);
@@ -115,24 +280,13 @@ public class BookingServiceImpl implements BookingService {
                 booking.setStatus(Status.REJECTED);
             }
         }
-
-        // Сохранение обновленной информации о бронировании
-        booking = bookingRepository.save(booking);
-
-        // Получение информации о предмете
-        Item item = itemRepository.findById(booking.getItem().getId()).get();
-
-        // Возврат обновленной информации о бронировании
-        return BookingMapper.toBookingDtoFull(booking, item);
     }
 
     // Метод для получения информации о конкретной брони
-    @Transactional
+    @Transactional(readOnly = true)
     public BookingDtoFull getBooking(long bookingId, long userId) {
-        if (bookingRepository.existsById(bookingId) == false) {
-            throw new NotFoundException("Букинг с id " + bookingId + " не найден");
-        }
-        Booking booking = bookingRepository.findById(bookingId).get();
+        Booking booking = bookingRepository.findWithItemAndBookerById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Букинг с id " + bookingId + " не найден"));
         if (booking.getBooker().getId() == userId || booking.getItem().getUser().getId() == userId) {
             return BookingMapper.toBookingDtoFull(booking, booking.getItem());
         } else {
@@ -140,71 +294,80 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Collection<BookingDtoFull> getUsersBookings(String state, Integer from, Integer size, long userId) {
         checkUserId(userId);
-        if (from >= 1) {
-            from = from - 2;
-        }
-        Pageable allBookings =
-                PageRequest.of(from, size, Sort.by("start").descending());
-        List<Booking> bookings = bookingRepository.findAllByBookerId(userId, allBookings);
-        if (state.equals("ALL")) {
-            return bookings
-                    .stream()
-                    .map(booking -> BookingMapper.toBookingDtoFull(booking, itemRepository.findById(booking.getItem().getId()).get()))
-                    .collect(Collectors.toList());
-        } else {
-            return bookings
-                    .stream()
-                    .filter(getOperation(state))
-                    .map(booking -> BookingMapper.toBookingDtoFull(booking, itemRepository.findById(booking.getItem().getId()).get()))
-                    .collect(Collectors.toList());
-        }
+        Paging.checkPage(from, size);
+        BooleanExpression condition = QBooking.booking.booker.id.eq(userId).and(getCondition(state));
+        return bookingRepository.findBookingDtos(condition, from, size);
     }
 
+    @Transactional(readOnly = true)
     public Collection<BookingDtoFull> getUsersItemsBookings(String state, Integer from, Integer size, long userId) {
         checkUserId(userId);
-        if (itemRepository.findByUserId(userId).size() == 0) {
+        Paging.checkPage(from, size);
+        if (!itemOwnerIndex.hasItems(userId)) {
             throw new NotFoundException("У пользователя с id " + userId + " нет вещей");
         }
-        Pageable allBookings =
-                PageRequest.of(from, size, Sort.by("start").descending());
-        List<Booking> bookings = bookingRepository.findByOwner(userId, allBookings);
-        if (state.equals("ALL")) {
-            return bookings
-                    .stream()
-                    .map(booking -> BookingMapper.toBookingDtoFull(booking, itemRepository.findById(booking.getItem().getId()).get()))
-                    .collect(Collectors.toList());
-        } else {
-            return bookings
-                    .stream()
-                    .filter(getOperation(state))
-                    .map(booking -> BookingMapper.toBookingDtoFull(booking, itemRepository.findById(booking.getItem().getId()).get()))
-                    .collect(Collectors.toList());
+        BooleanExpression condition = QBooking.booking.item.user.id.eq(userId).and(getCondition(state));
+        return bookingRepository.findBookingDtos(condition, from, size);
+    }
+
+    // Постраничная выдача бронирований пользователя по курсору (start, id) вместо смещения
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDtoFull> getUsersBookingsByCursor(String state, String cursor, Integer size, long userId) {
+        checkUserId(userId);
+        Paging.checkPage(0, size);
+        BooleanExpression condition = QBooking.booking.booker.id.eq(userId).and(getCondition(state));
+        return toCursorPage(condition, PageCursor.decode(cursor), size);
+    }
+
+    // Постраничная выдача бронирований вещей владельца по курсору (start, id) вместо смещения
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDtoFull> getUsersItemsBookingsByCursor(String state, String cursor, Integer size, long userId) {
+        checkUserId(userId);
+        Paging.checkPage(0, size);
+        BooleanExpression condition = QBooking.booking.item.user.id.eq(userId).and(getCondition(state));
+        return toCursorPage(condition, PageCursor.decode(cursor), size);
+    }
+
+    private CursorPage<BookingDtoFull> toCursorPage(BooleanExpression condition, PageCursor position, int size) {
+        if (position != null) {
+            condition = condition.and(QBooking.booking.start.lt(position.getDate())
+                    .or(QBooking.booking.start.eq(position.getDate()).and(QBooking.booking.id.lt(position.getId()))));
         }
+        List<BookingDtoFull> content = bookingRepository.findBookingDtos(condition, 0, size);
+        String nextCursor = null;
+        if (content.size() == size) {
+            BookingDtoFull last = content.get(content.size() - 1);
+            nextCursor = new PageCursor(last.getStart(), last.getId()).encode();
+        }
+        return new CursorPage<>(content, nextCursor);
     }
 
-    // Метод для определения предиката фильтрации по статусу
-    private Predicate<Booking> getOperation(String state) {
+    // Метод для определения условия отбора по статусу; null означает отсутствие ограничения
+    private BooleanExpression getCondition(String state) {
+        LocalDateTime now = LocalDateTime.now();
         switch (state) {
+            case "ALL":
+                return null;
             case "CURRENT":
-                return (booking) -> booking.getEnd().isAfter(LocalDateTime.now()) && booking.getStart().isBefore(LocalDateTime.now());
+                return QBooking.booking.end.after(now).and(QBooking.booking.start.before(now));
             case "PAST":
-                return (booking) -> booking.getEnd().isBefore(LocalDateTime.now());
+                return QBooking.booking.end.before(now);
             case "FUTURE":
-                return (booking) -> booking.getStart().isAfter(LocalDateTime.now());
+                return QBooking.booking.start.after(now);
             case "WAITING":
-                return (booking) -> booking.getStatus() == Status.WAITING;
+                return QBooking.booking.status.eq(Status.WAITING);
             case "REJECTED":
-                return (booking) -> booking.getStatus() == Status.REJECTED;
+                return QBooking.booking.status.eq(Status.REJECTED);
             default:
                 throw new WrongStateException("Unknown state: UNSUPPORTED_STATUS");
         }
     }
 
     // Метод для проверки существования пользователя по идентификатору
-    @Transactional
+    @Transactional(readOnly = true)
     public void checkUserId(long userId) {
         // Проверка наличия пользователя в базе данных
         if (!userRepository.existsById(userId)) {
@@ -0,0 +1,243 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.model.QBooking;
+import ru.practicum.shareit.booking.outbox.BookingEventDto;
+import ru.practicum.shareit.booking.outbox.BookingEventSink;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Рассылка изменений броней по SSE владельцам предметов и бронирующим. События приходят из outbox
+// (BookingEventSink), по ним одним запросом на пачку читаются BookingDtoFull - и только если у участников
+// есть подписки. Соединение без событий не занимает поток (асинхронный запрос сервлета), у каждого подписчика
+// своя очередь ограниченного размера: отправка идет в пуле отправителей, ретранслятор не ждет клиентов.
+// Подписчик, который не успевает читать и переполнил очередь, отключается и должен переподключиться,
+// после переподключения пропущенное состояние берется из GET /bookings и GET /bookings/owner.
+// Подписки хранятся в памяти процесса, а событие из outbox получает ретранслятор того экземпляра, который его
+// забрал: при нескольких экземплярах приложения подписчик получит только события, доставленные его экземпляром.
+// Рассылка между экземплярами (общий брокер или LISTEN/NOTIFY) не реализована, поэтому поток рассчитан на один
+// экземпляр, как и ретранслятор (см. BookingOutboxRelay)
+@Slf4j
+@Component
+@Order(0)
+public class BookingStreamHub implements BookingEventSink {
+    public static final String EVENT_NAME = "booking";
+
+    private final BookingRepository bookingRepository;
+    private final Executor sender;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final long timeout;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter dropped;
+
+    @Autowired
+    public BookingStreamHub(BookingRepository bookingRepository, MeterRegistry meterRegistry,
+                            @Value("${shareit.bookings.stream.sender-threads:4}") int senderThreads,
+                            @Value("${shareit.bookings.stream.queue-capacity:64}") int queueCapacity,
+                            @Value("${shareit.bookings.stream.max-subscribers:50000}") int maxSubscribers,
+                            @Value("${shareit.bookings.stream.timeout:1800000}") long timeout) {
+        this(bookingRepository, meterRegistry, Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-stream-sender");
+            thread.setDaemon(true);
+            return thread;
+        }), queueCapacity, maxSubscribers, timeout);
+    }
+
+    public BookingStreamHub(BookingRepository bookingRepository, MeterRegistry meterRegistry, Executor sender,
+                            int queueCapacity, int maxSubscribers, long timeout) {
+        this.bookingRepository = bookingRepository;
+        this.sender = sender;
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        Gauge.builder("shareit.bookings.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Открытые SSE-подписки на изменения броней")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("shareit.bookings.stream.dropped")
+                .description("Подписчики, отключенные из-за переполнения очереди")
+                .register(meterRegistry);
+    }
+
+    // Новая подписка пользователя; при исчерпании лимита подписок - 503, клиент повторит позже
+    public SseEmitter subscribe(long userId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceUnavailableException("Превышено число подписок на изменения броней, повторите позже");
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(userId, emitter, queueCapacity);
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void handle(List<BookingEventDto> events) {
+        List<BookingEventDto> delivered = events.stream()
+                .filter(event -> subscribers.containsKey(event.getOwnerId()) || subscribers.containsKey(event.getBookerId()))
+                .collect(Collectors.toList());
+        if (delivered.isEmpty()) {
+            return;
+        }
+        Set<Long> bookingIds = delivered.stream()
+                .map(BookingEventDto::getBookingId)
+                .collect(Collectors.toSet());
+        Map<Long, BookingDtoFull> bookings = bookingRepository.findBookingDtos(QBooking.booking.id.in(bookingIds), 0, bookingIds.size())
+                .stream()
+                .collect(Collectors.toMap(BookingDtoFull::getId, Function.identity()));
+        for (BookingEventDto event : delivered) {
+            BookingDtoFull booking = bookings.get(event.getBookingId());
+            if (booking == null) {
+                continue;
+            }
+            // Статус на момент события, а не на момент чтения: каждое изменение приходит отдельным событием
+            BookingDtoFull data = new BookingDtoFull(booking.getId(), booking.getStart(), booking.getEnd(), booking.getItem(),
+                    booking.getBooker(), event.getStatus());
+            Message message = new Message(String.valueOf(event.getId()), data);
+            Stream.concat(subscribersOf(event.getOwnerId()), subscribersOf(event.getBookerId()))
+                    .distinct()
+                    .forEach(subscriber -> offer(subscriber, message));
+        }
+    }
+
+    // Комментарий раз в интервал не дает прокси закрыть простаивающее соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedRateString = "${shareit.bookings.stream.heartbeat:30000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.queue.offer(Message.PING)) {
+                schedule(subscriber);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        if (sender instanceof ExecutorService) {
+            ((ExecutorService) sender).shutdown();
+        }
+    }
+
+    private Stream<Subscriber> subscribersOf(Long userId) {
+        Set<Subscriber> set = userId == null ? null : subscribers.get(userId);
+        return set == null ? Stream.empty() : set.stream();
+    }
+
+    private void offer(Subscriber subscriber, Message message) {
+        if (subscriber.queue.offer(message)) {
+            schedule(subscriber);
+            return;
+        }
+        dropped.increment();
+        log.info("Подписчик {} не успевает получать события броней и отключен", subscriber.userId);
+        remove(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    // У подписчика не больше одной задачи отправки одновременно: порядок событий сохраняется
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            sender.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            Message message;
+            while ((message = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(message.toEvent());
+            }
+        } catch (IOException | IllegalStateException e) {
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // Событие могло прийти после опустошения очереди, но до сброса флага
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static class Subscriber {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Message> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        Subscriber(long userId, SseEmitter emitter, int queueCapacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    // Событие в очереди подписчика; SseEventBuilder собирается при отправке, так как его нельзя отправить дважды
+    private static class Message {
+        private static final Message PING = new Message(null, null);
+
+        private final String id;
+        private final Object data;
+
+        Message(String id, Object data) {
+            this.id = id;
+            this.data = data;
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (data == null) {
+                return SseEmitter.event().comment("ping");
+            }
+            return SseEmitter.event().id(id).name(EVENT_NAME).data(data);
+        }
+    }
+}
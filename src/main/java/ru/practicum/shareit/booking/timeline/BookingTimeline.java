@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking.timeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.util.Status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+// Индекс бронирований в памяти процесса: для каждого предмета - его бронирования (кроме отклонённых),
+// упорядоченные по дате начала. Действующие бронирования одного предмета не пересекаются (см. createBooking),
+// поэтому последнее начавшееся бронирование заканчивается позже остальных и last/next/current ищутся за O(log n).
+// Индекс строится из БД при старте и дальше обновляется сервисом бронирований после коммита. Пока индекс
+// не построен или выключен (shareit.bookings.timeline.enabled=false), сервисы читают last/next из репозитория.
+@Slf4j
+@Component
+public class BookingTimeline {
+    private static final Comparator<BookingInterval> ORDER = Comparator.comparing(BookingInterval::getStart)
+            .thenComparingLong(BookingInterval::getId);
+
+    private final BookingRepository bookingRepository;
+    private final boolean enabled;
+    private final Map<Long, NavigableSet<BookingInterval>> timelines = new ConcurrentHashMap<>();
+    private final Map<Long, BookingInterval> bookings = new ConcurrentHashMap<>();
+    // Изменения, пришедшие во время чтения бронирований из БД при перестроении; null - перестроения нет
+    private List<BookingInterval> pending;
+    private volatile boolean ready;
+
+    public BookingTimeline(BookingRepository bookingRepository,
+                           @Value("${shareit.bookings.timeline.enabled:true}") boolean enabled) {
+        this.bookingRepository = bookingRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        List<BookingInterval> intervals;
+        try {
+            intervals = bookingRepository.findIntervalsByStatusNot(Status.REJECTED);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        // Изменения, закоммиченные во время чтения, могли не попасть в прочитанные данные:
+        // после загрузки они применяются повторно в том же порядке
+        synchronized (this) {
+            timelines.clear();
+            bookings.clear();
+            intervals.forEach(this::add);
+            pending.forEach(this::apply);
+            pending = null;
+            ready = true;
+        }
+        log.info("Индекс бронирований построен, бронирований: {}", intervals.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Обновление индекса после сохранения брони: в транзакции - только после коммита, иначе сразу
+    public void update(Booking booking) {
+        BookingInterval interval = new BookingInterval(booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd(), booking.getStatus());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(interval);
+                }
+            });
+        } else {
+            put(interval);
+        }
+    }
+
+    // Последнее бронирование, начавшееся до указанного момента
+    public Optional<BookingInterval> findLast(long itemId, LocalDateTime date) {
+        NavigableSet<BookingInterval> timeline = timelines.get(itemId);
+        return timeline == null ? Optional.empty() : Optional.ofNullable(timeline.lower(probe(date, Long.MIN_VALUE)));
+    }
+
+    // Ближайшее бронирование, которое начнётся после указанного момента
+    public Optional<BookingInterval> findNext(long itemId, LocalDateTime date) {
+        NavigableSet<BookingInterval> timeline = timelines.get(itemId);
+        return timeline == null ? Optional.empty() : Optional.ofNullable(timeline.higher(probe(date, Long.MAX_VALUE)));
+    }
+
+    // Бронирование, которое идёт в указанный момент
+    public Optional<BookingInterval> findCurrent(long itemId, LocalDateTime date) {
+        return findLast(itemId, date).filter(interval -> interval.getEnd().isAfter(date));
+    }
+
+    // Бронирования, пересекающиеся с периодом [from, to), по возрастанию начала
+    public List<BookingInterval> findOverlapping(long itemId, LocalDateTime from, LocalDateTime to) {
+        NavigableSet<BookingInterval> timeline = timelines.get(itemId);
+        if (timeline == null || !from.isBefore(to)) {
+            return List.of();
+        }
+        // Раньше from может начаться только одно пересекающееся бронирование - последнее из начавшихся
+        BookingInterval first = timeline.floor(probe(from, Long.MAX_VALUE));
+        return timeline.subSet(first != null ? first : probe(from, Long.MIN_VALUE), true, probe(to, Long.MIN_VALUE), false)
+                .stream()
+                .filter(interval -> interval.getEnd().isAfter(from))
+                .collect(Collectors.toList());
+    }
+
+    private synchronized void put(BookingInterval interval) {
+        if (pending != null) {
+            pending.add(interval);
+        }
+        apply(interval);
+    }
+
+    private void apply(BookingInterval interval) {
+        BookingInterval previous = bookings.remove(interval.getId());
+        if (previous != null) {
+            timelines.get(previous.getItemId()).remove(previous);
+        }
+        if (interval.getStatus() != Status.REJECTED) {
+            add(interval);
+        }
+    }
+
+    private void add(BookingInterval interval) {
+        bookings.put(interval.getId(), interval);
+        timelines.computeIfAbsent(interval.getItemId(), itemId -> new ConcurrentSkipListSet<>(ORDER)).add(interval);
+    }
+
+    private static BookingInterval probe(LocalDateTime date, long id) {
+        return new BookingInterval(id, 0, 0, date, date, null);
+    }
+}
@@ -1,11 +1,16 @@
 package ru.practicum.shareit.comment.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.comment.model.Comment;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
-
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     Set<Comment> findAllByItemId(long itemId);
+
+    @Query("select c from Comment as c join fetch c.author where c.item.id in :itemIds")
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds);
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Выбирает пул по текущей транзакции: read-only транзакции уходят на реплику, всё остальное - на основную БД.
+// Флаг read-only выставляется уже после открытия транзакции, поэтому снаружи источник оборачивается
+// в LazyConnectionDataSourceProxy, который берёт настоящее соединение только перед первым запросом.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+}
@@ -1,25 +1,38 @@
 package ru.practicum.shareit.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.batch.BatchResultDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentDtoFull;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoFull;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.validation.Exist;
 import ru.practicum.shareit.validation.New;
 
-import javax.validation.Valid;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.Collection;
 
 @RestController
 @RequestMapping("/items")
 public class ItemController {
     ItemService itemService;
+    ObjectMapper objectMapper;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ObjectMapper objectMapper) {
         this.itemService = itemService;
+        this.objectMapper = objectMapper;
     }
 
     // Метод для создания нового предмета
@@ -28,6 +41,12 @@ public class ItemController {
         return itemService.createItem(dto, userId);
     }
 
+    // Метод для пакетного создания предметов из JSON-массива: массив читается потоково, ошибки возвращаются по строкам
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto importItems(InputStream body, @RequestHeader("X-Sharer-User-Id") long userId) {
+        return itemService.importItems(userId, body);
+    }
+
     // Метод для обновления информации о предмете
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@RequestBody @Validated(Exist.class) ItemDto dto, @PathVariable long itemId, @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -42,14 +61,44 @@ public class ItemController {
 
     // Метод для получения списка всех предметов пользователя
     @GetMapping
-    public Collection<ItemDtoFull> getAllUsersItems(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId) {
-        return itemService.getAllUsersItems(userId);
+    public Collection<ItemDtoFull> getAllUsersItems(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId,
+                                                    @RequestParam(required = false, defaultValue = "0") Integer from,
+                                                    @RequestParam(required = false, defaultValue = "10") Integer size) {
+        return itemService.getAllUsersItems(userId, from, size);
+    }
+
+    // Метод для выгрузки всех предметов пользователя в формате NDJSON (по объекту на строку) без постраничного разбиения
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsersItems(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId) {
+        if (userId != null) {
+            itemService.checkUserId(userId);
+        }
+        StreamingResponseBody body = outputStream -> itemService.exportItems(userId, dto -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(dto));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     // Метод для поиска предметов по текстовому описанию
     @GetMapping("/search")
-    public Collection<ItemDto> findItem(@RequestParam String text, @RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId) {
-        return itemService.findItem(text, userId);
+    public Collection<ItemDto> findItem(@RequestParam String text, @RequestParam(required = false, defaultValue = "0") Integer from,
+                                        @RequestParam(required = false, defaultValue = "10") Integer size, @RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId) {
+        return itemService.findItem(text, from, size, userId);
+    }
+
+    // Метод для получения занятых и свободных промежутков предмета в периоде [from, to)
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable long itemId,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
     }
 
     // Метод для добавления комментария к предмету
@@ -8,8 +8,8 @@ import ru.practicum.shareit.booking.dto.BookingDtoForItem;
 import ru.practicum.shareit.comment.dto.CommentDtoFull;
 import ru.practicum.shareit.validation.*;
 
-import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotNull;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import java.util.List;
 
 @Data
@@ -28,4 +28,6 @@ public class ItemDtoFull {
     private BookingDtoForItem lastBooking;
     private BookingDtoForItem nextBooking;
     List<CommentDtoFull> comments;
+    // Всего комментариев; в списке вещей владельца comments содержит только последние из них
+    private Integer commentCount;
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Пара предмет - владелец без загрузки сущностей: элемент индекса ItemOwnerIndex
+@Getter
+@ToString
+@AllArgsConstructor
+public class ItemOwnership {
+    private final long itemId;
+    private final long ownerId;
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.mapper;
 
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingDtoForItem;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.comment.dto.CommentDtoFull;
@@ -9,6 +11,7 @@ import ru.practicum.shareit.item.dto.ItemDtoForBooking;
 import ru.practicum.shareit.item.dto.ItemDtoForRequest;
 import ru.practicum.shareit.item.dto.ItemDtoFull;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.summary.ItemSummary;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -56,6 +59,7 @@ public class ItemMapper {
                 .available(item.getIsAvailable())
                 .userId(item.getUser().getId())
                 .comments(comments)
+                .commentCount(comments == null ? null : comments.size())
                 .build();
         if (lastBooking != null) {
             itemDtoFull.setLastBooking(BookingMapper.toBookingDtoForItem(lastBooking));
@@ -66,6 +70,33 @@ public class ItemMapper {
         return itemDtoFull;
     }
 
+    public static ItemDtoFull toItemDtoFullFromIntervals(Item item, BookingInterval lastBooking, BookingInterval nextBooking, List<CommentDtoFull> comments) {
+        ItemDtoFull itemDtoFull = toItemDtoFull(item, null, null, comments);
+        if (lastBooking != null) {
+            itemDtoFull.setLastBooking(BookingMapper.toBookingDtoForItem(lastBooking));
+        }
+        if (nextBooking != null) {
+            itemDtoFull.setNextBooking(BookingMapper.toBookingDtoForItem(nextBooking));
+        }
+        return itemDtoFull;
+    }
+
+    // Сводка отсутствует у предмета без броней и комментариев
+    public static ItemDtoFull toItemDtoFullFromSummary(Item item, ItemSummary summary, List<CommentDtoFull> comments) {
+        ItemDtoFull itemDtoFull = toItemDtoFull(item, null, null, comments);
+        if (summary == null) {
+            return itemDtoFull;
+        }
+        itemDtoFull.setCommentCount(summary.getCommentCount());
+        if (summary.getLastBookingId() != null) {
+            itemDtoFull.setLastBooking(new BookingDtoForItem(summary.getLastBookingId(), summary.getLastBookerId()));
+        }
+        if (summary.getNextBookingId() != null) {
+            itemDtoFull.setNextBooking(new BookingDtoForItem(summary.getNextBookingId(), summary.getNextBookerId()));
+        }
+        return itemDtoFull;
+    }
+
     public static ItemDtoForRequest toItemDtoForRequest(Item item) {
         ItemDtoForRequest dto = ItemDtoForRequest.builder()
                 .id(item.getId())
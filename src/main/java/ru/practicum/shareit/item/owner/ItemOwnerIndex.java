@@ -0,0 +1,126 @@
+package ru.practicum.shareit.item.owner;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemOwnership;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Индекс владельцев в памяти процесса: для каждого владельца - отсортированный массив id его предметов.
+// Проверка "пользователь владеет предметом" и "у пользователя есть предметы" не загружает сущности Item
+// и не обращается к БД, если ответ положительный. Отрицательный ответ перепроверяется exists-запросом:
+// предмет, созданный в обход индекса (до его построения или другим экземпляром приложения), не приводит
+// к ложному отказу в доступе. Индекс строится при старте и обновляется после коммита создания и удаления
+// предметов (ItemOwnerListener); владелец предмета не меняется. При shareit.items.owner-index.enabled=false
+// все проверки выполняются запросами к БД
+@Slf4j
+@Component
+public class ItemOwnerIndex {
+    private static final long[] EMPTY = new long[0];
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final Map<Long, long[]> itemIds = new ConcurrentHashMap<>();
+
+    public ItemOwnerIndex(ItemRepository itemRepository,
+                          @Value("${shareit.items.owner-index.enabled:true}") boolean enabled) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<ItemOwnership> ownerships = itemRepository.findAllOwnerships();
+        // Предмет, добавленный во время построения и потерянный при очистке, вернется в индекс при первой проверке
+        itemIds.clear();
+        ownerships.forEach(ownership -> put(ownership.getOwnerId(), ownership.getItemId()));
+        log.info("Индекс владельцев предметов построен, предметов: {}", ownerships.size());
+    }
+
+    // Принадлежит ли предмет пользователю
+    public boolean isOwner(long userId, long itemId) {
+        if (enabled && Arrays.binarySearch(itemIds.getOrDefault(userId, EMPTY), itemId) >= 0) {
+            return true;
+        }
+        boolean owner = itemRepository.existsByIdAndUserId(itemId, userId);
+        if (owner && enabled) {
+            put(userId, itemId);
+        }
+        return owner;
+    }
+
+    // Есть ли у пользователя хотя бы один предмет
+    public boolean hasItems(long userId) {
+        return enabled && itemIds.containsKey(userId) || itemRepository.existsByUserId(userId);
+    }
+
+    // Вызываются после сохранения и удаления предмета: в транзакции - только после коммита, иначе сразу
+    public void added(long userId, long itemId) {
+        afterCommit(() -> put(userId, itemId));
+    }
+
+    public void removed(long userId, long itemId) {
+        afterCommit(() -> remove(userId, itemId));
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    // Массив владельца не изменяется, а заменяется копией: чтение идет без блокировок
+    private void put(long userId, long itemId) {
+        itemIds.compute(userId, (id, ids) -> {
+            long[] current = ids == null ? EMPTY : ids;
+            int position = Arrays.binarySearch(current, itemId);
+            if (position >= 0) {
+                return current;
+            }
+            int insertion = -position - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertion);
+            updated[insertion] = itemId;
+            System.arraycopy(current, insertion, updated, insertion + 1, current.length - insertion);
+            return updated;
+        });
+    }
+
+    private void remove(long userId, long itemId) {
+        itemIds.computeIfPresent(userId, (id, ids) -> {
+            int position = Arrays.binarySearch(ids, itemId);
+            if (position < 0) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] updated = new long[ids.length - 1];
+            System.arraycopy(ids, 0, updated, 0, position);
+            System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+            return updated;
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.owner;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+// Обновление ItemOwnerIndex при любом сохранении и удалении предмета через JPA: сервис, пакетный импорт, репозиторий.
+// Экземпляр создает Hibernate через контейнер бинов Spring; без индекса в контексте (@DataJpaTest) ничего не делает
+@Component
+public class ItemOwnerListener {
+    private final ObjectProvider<ItemOwnerIndex> itemOwnerIndex;
+
+    public ItemOwnerListener(ObjectProvider<ItemOwnerIndex> itemOwnerIndex) {
+        this.itemOwnerIndex = itemOwnerIndex;
+    }
+
+    @PostPersist
+    public void added(Item item) {
+        itemOwnerIndex.ifAvailable(index -> index.added(item.getUser().getId(), item.getId()));
+    }
+
+    @PostRemove
+    public void removed(Item item) {
+        itemOwnerIndex.ifAvailable(index -> index.removed(item.getUser().getId(), item.getId()));
+    }
+}
@@ -1,21 +1,90 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoForRequest;
+import ru.practicum.shareit.item.dto.ItemOwnership;
 import ru.practicum.shareit.item.model.Item;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    List<Item> findByUserId(long userId);
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
 
-    @Query(value = "select * " +
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+    // Реализация - в ItemRepositoryCustomImpl (кэш положительных ответов), объявление снимает неоднозначность с CrudRepository
+    @Override
+    boolean existsById(Long id);
+
+
+    List<Item> findByUserId(long userId, Pageable pageable);
+
+    boolean existsByUserId(long userId);
+
+    boolean existsByIdAndUserId(long id, long userId);
+
+    // Владельцы предметов без загрузки сущностей - для построения индекса ItemOwnerIndex
+    @Query("select new ru.practicum.shareit.item.dto.ItemOwnership(i.id, i.user.id) from Item as i")
+    List<ItemOwnership> findAllOwnerships();
+
+    // Id предметов по возрастанию начиная после afterId - для обхода всех предметов пачками
+    @Query("select i.id from Item as i where i.id > :afterId order by i.id")
+    List<Long> findIdsAfter(long afterId, Pageable pageable);
+
+    // Потоковое чтение для выгрузки: строки читаются из курсора порциями по fetch size
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select i from Item as i where i.user.id = :userId order by i.id")
+    Stream<Item> streamByUserId(long userId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select i from Item as i order by i.id")
+    Stream<Item> streamAll();
+
+    List<Item> findByIsAvailableTrue();
+
+    // Выражение tsvector должно совпадать с выражением индекса idx_items_search из schema-postgresql.sql
+    @Query(value = "select id " +
             "from items " +
             "where is_available = true " +
-            "and (name ilike %:text% " +
-            "or description ilike %:text%)",
+            "and (setweight(to_tsvector('simple', name), 'A') || setweight(to_tsvector('simple', description), 'B')) " +
+            "@@ to_tsquery('simple', :query) " +
+            "order by ts_rank(setweight(to_tsvector('simple', name), 'A') || setweight(to_tsvector('simple', description), 'B'), " +
+            "to_tsquery('simple', :query)) desc, id " +
+            "limit :size offset :from",
             nativeQuery = true)
-    List<Item> findByNameOrDescriptionContainingIgnoreCase(String text);
+    List<Long> searchAvailableIds(String query, int from, int size);
 
     List<Item> findByRequestId(long requestId);
+
+    // Ответы сразу на набор запросов: один запрос IN (...) вместо запроса на каждый ItemRequest.
+    // Выбираются только поля ItemDtoForRequest, сущности Item не создаются
+    @Query("select new ru.practicum.shareit.item.dto.ItemDtoForRequest(i.id, i.name, i.description, i.isAvailable, i.request.id) " +
+            "from Item as i " +
+            "where i.request.id in :requestIds " +
+            "order by i.id")
+    List<ItemDtoForRequest> findItemDtosByRequestIdIn(Collection<Long> requestIds);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.isAvailable, i.user.id, i.request.id) " +
+            "from Item as i " +
+            "where i.id in :ids")
+    List<ItemDto> findItemDtosByIdIn(Collection<Long> ids);
+
+    @Query(value = "select booking_version from items where id = :itemId", nativeQuery = true)
+    long getBookingVersion(long itemId);
+
+    // Возвращает 0, если с момента чтения версии предмет успели забронировать в другой транзакции.
+    // Колонка booking_version не отображается на Item, поэтому запрос объявляет собственное пространство вместо
+    // таблицы items: иначе Hibernate очищал бы кэш второго уровня предметов при каждом бронировании
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "items_booking_version"))
+    @Query(value = "update items set booking_version = booking_version + 1 where id = :itemId and booking_version = :version",
+            nativeQuery = true)
+    int incrementBookingVersion(long itemId, long version);
 }
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.repository;
+
+public interface ItemRepositoryCustom {
+    // Проверка существования предмета: положительный ответ кэшируется (ExistenceCache), сущность не загружается
+    boolean existsById(Long id);
+
+    // Сброс закэшированного ответа после изменения или удаления предмета
+    void evictExistence(long id);
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.item.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.Assert;
+import ru.practicum.shareit.util.ExistenceCache;
+
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+
+import static ru.practicum.shareit.item.model.QItem.item;
+
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+    private final JPAQueryFactory queryFactory;
+    private final ExistenceCache existenceCache;
+
+    public ItemRepositoryCustomImpl(EntityManager entityManager, ObjectProvider<MeterRegistry> meterRegistry,
+                                    @Value("${shareit.cache.existence.maximum-size:10000}") long maximumSize,
+                                    @Value("${shareit.cache.existence.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.existenceCache = new ExistenceCache("items.exists", this::existsInDatabase, maximumSize, expireAfterWrite,
+                meterRegistry.getIfAvailable());
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        Assert.notNull(id, "The given id must not be null");
+        return existenceCache.exists(id);
+    }
+
+    @Override
+    public void evictExistence(long id) {
+        existenceCache.evict(id);
+    }
+
+    private boolean existsInDatabase(long id) {
+        return queryFactory.selectOne().from(item).where(item.id.eq(id)).fetchFirst() != null;
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Инвертированный индекс в памяти процесса: слово -> (id предмета -> вес).
+// Слова из названия весят больше, чем слова из описания. Слово запроса совпадает со всеми словами индекса,
+// которые начинаются с него, поэтому "дрел" находит "дрель". Предмет попадает в выдачу, только если совпали
+// все слова запроса; релевантность - сумма весов совпадений, умноженных на idf слова.
+// Используется на H2 и в тестах; индекс строится из БД при старте и дальше обновляется сервисом предметов.
+// Внутри транзакции изменения индекса применяются только после ее коммита: откат не оставляет в выдаче
+// несохраненный предмет или несохраненное описание.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ItemRepository itemRepository;
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, List<String>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public InMemoryItemSearchEngine(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Item> items = itemRepository.findByIsAvailableTrue();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            items.forEach(item -> add(item.getId(), weights(item)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс построен, предметов: {}", items.size());
+    }
+
+    @Override
+    public List<Long> search(String text, int from, int size) {
+        List<String> terms = Tokenizer.tokenize(text);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String term : terms) {
+                Map<Long, Double> termScores = score(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((itemId, score) -> score + termScores.get(itemId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .skip(from)
+                    .limit(size)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Слова предмета выбираются сразу: до коммита сущность еще может измениться
+    @Override
+    public void index(Item item) {
+        long itemId = item.getId();
+        Map<String, Integer> weights = Boolean.TRUE.equals(item.getIsAvailable()) ? weights(item) : null;
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(itemId);
+                if (weights != null) {
+                    add(itemId, weights);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void remove(long itemId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    // Вес каждого предмета по слову запроса: лучшее из совпавших по префиксу слов индекса
+    private Map<Long, Double> score(String term) {
+        Map<Long, Double> result = new HashMap<>();
+        int documentCount = Math.max(documents.size(), 1);
+        for (Map<Long, Integer> posting : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+            double idf = Math.log(1.0 + (double) documentCount / posting.size());
+            posting.forEach((itemId, weight) -> result.merge(itemId, weight * idf, Math::max));
+        }
+        return result;
+    }
+
+    private Map<String, Integer> weights(Item item) {
+        Map<String, Integer> weights = new HashMap<>();
+        Tokenizer.tokenize(item.getName()).forEach(token -> weights.merge(token, NAME_WEIGHT, Integer::sum));
+        Tokenizer.tokenize(item.getDescription()).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+        return weights;
+    }
+
+    private void add(long itemId, Map<String, Integer> weights) {
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, key -> new HashMap<>()).put(itemId, weight));
+        documents.put(itemId, new ArrayList<>(weights.keySet()));
+    }
+
+    private void delete(long itemId) {
+        List<String> tokens = documents.remove(itemId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<Long, Integer> posting = postings.get(token);
+            posting.remove(itemId);
+            if (posting.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+}
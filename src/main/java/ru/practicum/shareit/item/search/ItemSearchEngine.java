@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+// Полнотекстовый поиск доступных предметов по названию и описанию
+public interface ItemSearchEngine {
+    // Идентификаторы найденных предметов по убыванию релевантности
+    List<Long> search(String text, int from, int size);
+
+    // Добавление или обновление предмета в индексе; вызванное в транзакции применяется после ее коммита
+    void index(Item item);
+
+    // Удаление предмета из индекса, в транзакции - после ее коммита
+    void remove(long itemId);
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Поиск средствами PostgreSQL: запрос идет по GIN-индексу idx_items_search из schema-postgresql.sql,
+// выражение tsvector в запросе должно совпадать с выражением индекса. Каждое слово запроса ищется
+// как префикс, как и в InMemoryItemSearchEngine. Индекс поддерживает сама БД, поэтому index/remove пустые.
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    public PostgresItemSearchEngine(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    public List<Long> search(String text, int from, int size) {
+        List<String> terms = Tokenizer.tokenize(text);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        String query = terms.stream()
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+        return itemRepository.searchAvailableIds(query, from, size);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void remove(long itemId) {
+    }
+}
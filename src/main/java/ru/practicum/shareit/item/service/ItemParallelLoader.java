@@ -0,0 +1,131 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.comment.dto.CommentDtoFull;
+import ru.practicum.shareit.comment.mapper.CommentMapper;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Параллельная загрузка карточки предмета: предмет, комментарии и (для владельца, если индекс бронирований
+// не готов) последнее и следующее бронирование читаются одновременно, время ответа - время самого медленного запроса.
+// Согласованность: каждое чтение идет в своей read-only транзакции на своем соединении и видит только
+// зафиксированные данные, но части карточки могут относиться к разным моментам времени. Последовательный режим
+// при READ COMMITTED (по умолчанию в PostgreSQL) дает ту же гарантию: снимок берется на каждое выражение.
+// Вызывающий поток во время ожидания соединение не держит, поэтому на запрос приходится не больше трех соединений
+// одновременно; размер пула потоков не должен превышать пул соединений. При заполненной очереди задача
+// выполняется в вызывающем потоке, то есть под нагрузкой режим деградирует до последовательного
+@Component
+public class ItemParallelLoader {
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingTimeline bookingTimeline;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+
+    public ItemParallelLoader(ItemRepository itemRepository, CommentRepository commentRepository,
+                              BookingRepository bookingRepository, BookingTimeline bookingTimeline,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${shareit.items.parallel-fetch.enabled:false}") boolean enabled,
+                              @Value("${shareit.items.parallel-fetch.threads:8}") int threads,
+                              @Value("${shareit.items.parallel-fetch.queue-capacity:100}") int queueCapacity) {
+        this.itemRepository = itemRepository;
+        this.commentRepository = commentRepository;
+        this.bookingRepository = bookingRepository;
+        this.bookingTimeline = bookingTimeline;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = enabled ? new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "item-fetch-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Бронирования запрашиваются заранее, пока владелец предмета неизвестен: для чужих предметов результат
+    // отбрасывается. Запрос без пользователя бронирования не получает, поэтому для него они не читаются
+    public ItemDtoFull load(long itemId, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean loadBookings = userId != null && !bookingTimeline.isReady();
+        CompletableFuture<Item> item = submit(() -> itemRepository.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Предмет с id " + itemId + " не найден")));
+        CompletableFuture<List<CommentDtoFull>> comments = submit(() -> commentRepository.findAllByItemId(itemId)
+                .stream()
+                .map(CommentMapper::toCommentDtoFull)
+                .collect(Collectors.toList()));
+        CompletableFuture<Booking> lastBooking = loadBookings
+                ? submit(() -> bookingRepository.getFirstByItemIdAndStatusNotAndStartBeforeOrderByStartDescIdDesc(itemId, Status.REJECTED, now))
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<Booking> nextBooking = loadBookings
+                ? submit(() -> bookingRepository.getFirstByItemIdAndStatusNotAndStartAfterOrderByStartAscIdAsc(itemId, Status.REJECTED, now))
+                : CompletableFuture.completedFuture(null);
+
+        Item loadedItem = join(item);
+        List<CommentDtoFull> loadedComments = join(comments);
+        // Владелец существует, пока существует его предмет (внешний ключ), отдельная проверка не нужна
+        if (userId == null || !userId.equals(loadedItem.getUser().getId())) {
+            return ItemMapper.toItemDtoFull(loadedItem, null, null, loadedComments);
+        }
+        if (!loadBookings) {
+            return ItemMapper.toItemDtoFullFromIntervals(loadedItem, bookingTimeline.findLast(itemId, now).orElse(null),
+                    bookingTimeline.findNext(itemId, now).orElse(null), loadedComments);
+        }
+        return ItemMapper.toItemDtoFull(loadedItem, join(lastBooking), join(nextBooking), loadedComments);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+
+    // Исключение из подзапроса (например, NotFoundException) пробрасывается как есть, без обертки
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.batch.BatchResultDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentDtoFull;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoFull;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface ItemService {
     ItemDto createItem(ItemDto dto, long userId);
@@ -14,9 +19,17 @@ public interface ItemService {
 
     ItemDtoFull getItemById(long id, Long userId);
 
-    Collection<ItemDtoFull> getAllUsersItems(Long userId);
+    Collection<ItemDtoFull> getAllUsersItems(Long userId, Integer from, Integer size);
 
-    Collection<ItemDto> findItem(String text, Long userId);
+    void exportItems(Long userId, Consumer<ItemDto> action);
+
+    void checkUserId(long userId);
+
+    Collection<ItemDto> findItem(String text, Integer from, Integer size, Long userId);
 
     CommentDtoFull addComment(CommentDto commentDto, long itemId, long userId);
+
+    ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to);
+
+    BatchResultDto importItems(long userId, InputStream body);
 }
@@ -1,9 +1,17 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.batch.BatchImporter;
+import ru.practicum.shareit.batch.BatchResultDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
 import ru.practicum.shareit.booking.util.Status;
 import ru.practicum.shareit.comment.mapper.CommentMapper;
 import ru.practicum.shareit.comment.repository.CommentRepository;
@@ -11,39 +19,84 @@ import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentDtoFull;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.exception.WrongAccessException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.summary.ItemSummaryService;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.util.OffsetPageRequest;
+import ru.practicum.shareit.util.Paging;
+import ru.practicum.shareit.validation.New;
 
+import jakarta.persistence.EntityManager;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ItemServiceImpl implements ItemService {
+    // Статусы, при которых бронь занимает предмет
+    private static final List<Status> BUSY_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+    private static final Duration DEFAULT_AVAILABILITY_PERIOD = Duration.ofDays(30);
+    private static final Duration MAX_AVAILABILITY_PERIOD = Duration.ofDays(366);
+
     private UserRepository userRepository;
     private ItemRepository itemRepository;
     private BookingRepository bookingRepository;
     private CommentRepository commentRepository;
     private ItemRequestRepository itemRequestRepository;
+    private ItemSearchEngine itemSearchEngine;
+    private EntityManager entityManager;
+    private BookingTimeline bookingTimeline;
+    private BatchImporter batchImporter;
+    private TransactionTemplate readOnlyTransaction;
+    private ItemParallelLoader itemParallelLoader;
+    private ItemOwnerIndex itemOwnerIndex;
+    private ItemSummaryService itemSummaryService;
 
     @Autowired
-    public ItemServiceImpl(UserRepository userRepository, ItemRepository itemRepository, BookingRepository bookingRepository, CommentRepository commentRepository, ItemRequestRepository itemRequestRepository) {
+    public ItemServiceImpl(UserRepository userRepository, ItemRepository itemRepository, BookingRepository bookingRepository, CommentRepository commentRepository, ItemRequestRepository itemRequestRepository, ItemSearchEngine itemSearchEngine, EntityManager entityManager, BookingTimeline bookingTimeline, BatchImporter batchImporter,
+                           PlatformTransactionManager transactionManager, ItemParallelLoader itemParallelLoader, ItemOwnerIndex itemOwnerIndex,
+                           ItemSummaryService itemSummaryService) {
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
         this.itemRequestRepository = itemRequestRepository;
+        this.itemSearchEngine = itemSearchEngine;
+        this.entityManager = entityManager;
+        this.bookingTimeline = bookingTimeline;
+        this.batchImporter = batchImporter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.itemParallelLoader = itemParallelLoader;
+        this.itemOwnerIndex = itemOwnerIndex;
+        this.itemSummaryService = itemSummaryService;
     }
 
     // Метод для создания нового предмета
+    @Transactional
     public ItemDto createItem(ItemDto dto, long userId) {
         userExistenceCheck(userId);
         dto.setUserId(userId);
@@ -54,17 +107,48 @@ public class ItemServiceImpl implements ItemService {
             item = ItemMapper.toItem(dto, userRepository.findById(userId).get(), null);
         }
         item = itemRepository.save(item);
+        itemSearchEngine.index(item);
         return ItemMapper.toItemDto(item);
     }
 
+    // Метод для пакетного создания предметов пользователя из JSON-массива; строки с ошибками (в том числе
+    // со ссылкой на несуществующий запрос) попадают в итог и не прерывают импорт. Запросы, на которые ссылается
+    // порция, читаются одним запросом
+    public BatchResultDto importItems(long userId, InputStream body) {
+        userExistenceCheck(userId);
+        return batchImporter.importJsonArrayByChunks(body, ItemDto.class, New.class, chunk -> {
+            Set<Long> requestIds = chunk.stream()
+                    .map(ItemDto::getRequestId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Map<Long, ItemRequest> requests = new HashMap<>();
+            if (!requestIds.isEmpty()) {
+                itemRequestRepository.findAllById(requestIds).forEach(request -> requests.put(request.getId(), request));
+            }
+            return dto -> {
+                dto.setId(null);
+                dto.setUserId(userId);
+                ItemRequest request = null;
+                if (dto.getRequestId() != null) {
+                    request = requests.get(dto.getRequestId());
+                    if (request == null) {
+                        throw new NotFoundException("Запрос с id " + dto.getRequestId() + " не найден");
+                    }
+                }
+                return ItemMapper.toItem(dto, userRepository.getReferenceById(userId), request);
+            };
+        }, itemRepository, itemSearchEngine::index);
+    }
+
     // Метод для обновления информации о предмете
+    @Transactional
     public ItemDto updateItem(ItemDto dto, long itemId, long userId) {
         userExistenceCheck(userId);
         itemExistenceCheck(itemId);
         dto.setUserId(userId);
+        accessCheck(itemId, userId);
 
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Предмет с id " + itemId + " не найден"));
-        accessCheck(item.getUser().getId(), userId);
 
         if (dto.getName() != null) {
             item.setName(dto.getName());
@@ -76,34 +160,51 @@ public class ItemServiceImpl implements ItemService {
             item.setIsAvailable(dto.getAvailable());
         }
         itemRepository.save(item);
+        itemSearchEngine.index(item);
 
         return ItemMapper.toItemDto(item);
     }
 
     // Метод для удаления предмета
+    @Transactional
     public void deleteItem(long itemId, long userId) {
         userExistenceCheck(userId);
         itemExistenceCheck(itemId);
-
-        Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Предмет с id " + itemId + " не найден"));
-        accessCheck(item.getUser().getId(), userId);
+        accessCheck(itemId, userId);
         itemRepository.deleteById(itemId);
+        itemRepository.evictExistence(itemId);
+        itemSearchEngine.remove(itemId);
     }
 
-    // Метод для получения информации о предмете по его ID
+    // Метод для получения информации о предмете по его ID. Транзакция открывается явно, а не аннотацией:
+    // в параллельном режиме вызывающий поток не должен держать соединение, пока ждет подзапросы
     public ItemDtoFull getItemById(long itemId, Long userId) {
+        if (itemParallelLoader != null && itemParallelLoader.isEnabled()) {
+            return itemParallelLoader.load(itemId, userId);
+        }
+        return readOnlyTransaction.execute(status -> getItemByIdSequentially(itemId, userId));
+    }
+
+    private ItemDtoFull getItemByIdSequentially(long itemId, Long userId) {
         itemExistenceCheck(itemId);
         Item item = itemRepository.findById(itemId).get();
         List<CommentDtoFull> comments = getComments(itemId);
         if (userId != null && userId.equals(item.getUser().getId())) {
             userExistenceCheck(userId);
-            Booking lastBooking = bookingRepository.getFirstByItemIdAndStatusNotAndStartBeforeOrderByEndDesc(itemId, Status.REJECTED, LocalDateTime.now());
-            Booking nextBooking = bookingRepository.getFirstByItemIdAndStatusNotAndStartAfterOrderByStart(itemId, Status.REJECTED, LocalDateTime.now());
+            if (bookingTimeline.isReady()) {
+                LocalDateTime now = LocalDateTime.now();
+                return ItemMapper.toItemDtoFullFromIntervals(item, bookingTimeline.findLast(itemId, now).orElse(null),
+                        bookingTimeline.findNext(itemId, now).orElse(null), comments);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Booking lastBooking = bookingRepository.getFirstByItemIdAndStatusNotAndStartBeforeOrderByStartDescIdDesc(itemId, Status.REJECTED, now);
+            Booking nextBooking = bookingRepository.getFirstByItemIdAndStatusNotAndStartAfterOrderByStartAscIdAsc(itemId, Status.REJECTED, now);
             return ItemMapper.toItemDtoFull(item, lastBooking, nextBooking, comments);
         } else return ItemMapper.toItemDtoFull(item, null, null, comments);
     }
 
     // Метод для получения списка всех предметов
+    @Transactional(readOnly = true)
     public Collection<ItemDto> getAllItems() {
         return itemRepository.findAll()
                 .stream()
@@ -111,38 +212,61 @@ public class ItemServiceImpl implements ItemService {
                 .collect(Collectors.toList());
     }
 
-    // Метод для получения списка всех предметов, принадлежащих пользователю
-    public Collection<ItemDtoFull> getAllUsersItems(Long userId) {
+    // Метод для получения страницы предметов, принадлежащих пользователю (или всех предметов, если пользователь не указан)
+    @Transactional(readOnly = true)
+    public Collection<ItemDtoFull> getAllUsersItems(Long userId, Integer from, Integer size) {
+        Paging.checkPage(from, size);
+        Pageable page = OffsetPageRequest.of(from, size, Sort.by("id"));
         if (userId == null) {
-            return itemRepository.findAll()
-                    .stream()
-                    .map(item -> ItemMapper.toItemDtoFull(item, null, null, getComments(item.getId())))
-                    .collect(Collectors.toList());
+            return toItemDtoFullList(itemRepository.findAll(page).getContent(), false);
         }
         userExistenceCheck(userId);
-        LocalDateTime localDateTime = LocalDateTime.now();
+        if (itemSummaryService.isEnabled()) {
+            return itemSummaryService.getOwnerItems(userId, from, size);
+        }
+        return toItemDtoFullList(itemRepository.findByUserId(userId, page), true);
+    }
 
-        return itemRepository.findByUserId(userId)
-                .stream()
-                .map(item -> ItemMapper.toItemDtoFull(item,
-                        bookingRepository.getFirstByItemIdAndEndBeforeOrderByEnd(item.getId(), localDateTime),
-                        bookingRepository.getTopByItemIdAndStartAfterOrderByStart(item.getId(), localDateTime),
-                        getComments(item.getId())))
-                .collect(Collectors.toList());
+    // Метод для потоковой выгрузки предметов: сущности читаются из курсора и сразу отсоединяются от контекста,
+    // поэтому память не растет с количеством предметов
+    @Transactional(readOnly = true)
+    public void exportItems(Long userId, Consumer<ItemDto> action) {
+        try (Stream<Item> items = userId == null ? itemRepository.streamAll() : itemRepository.streamByUserId(userId)) {
+            items.forEach(item -> {
+                action.accept(ItemMapper.toItemDto(item));
+                entityManager.detach(item);
+            });
+        }
     }
 
-    // Метод для поиска предметов по текстовому описанию
-    public Collection<ItemDto> findItem(String text, Long userId) {
+    // Метод для проверки существования пользователя перед выгрузкой
+    @Transactional(readOnly = true)
+    public void checkUserId(long userId) {
+        userExistenceCheck(userId);
+    }
+
+    // Метод для поиска предметов по текстовому описанию, результаты упорядочены по релевантности
+    @Transactional(readOnly = true)
+    public Collection<ItemDto> findItem(String text, Integer from, Integer size, Long userId) {
+        Paging.checkPage(from, size);
         if (text.isBlank()) {
             return new ArrayList<>();
         }
-        return itemRepository.findByNameOrDescriptionContainingIgnoreCase(text)
+        List<Long> ids = itemSearchEngine.search(text, from, size);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ItemDto> items = itemRepository.findItemDtosByIdIn(ids)
                 .stream()
-                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+        return ids.stream()
+                .filter(items::containsKey)
+                .map(items::get)
                 .collect(Collectors.toList());
     }
 
     // Метод для добавления комментария к предмету
+    @Transactional
     public CommentDtoFull addComment(CommentDto commentDto, long itemId, long userId) {
         userExistenceCheck(userId);
         itemExistenceCheck(itemId);
@@ -153,12 +277,69 @@ public class ItemServiceImpl implements ItemService {
             commentDto.setCreated(LocalDateTime.now());
             Comment comment = CommentMapper.toComment(commentDto, itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Предмет с id " + itemId + " не найден")), userRepository.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден")));
             comment = commentRepository.save(comment);
+            itemSummaryService.commentAdded(itemId);
             return CommentMapper.toCommentDtoFull(comment);
         } else {
             throw new WrongAccessException("Пользователь не брал предмет в аренду или срок аренды еще не истек");
         }
     }
 
+    // Метод для получения занятых и свободных промежутков предмета в периоде (по умолчанию - 30 дней от текущего момента)
+    @Transactional(readOnly = true)
+    public ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        itemExistenceCheck(itemId);
+        LocalDateTime periodStart = from != null ? from : LocalDateTime.now();
+        LocalDateTime periodEnd = to != null ? to : periodStart.plus(DEFAULT_AVAILABILITY_PERIOD);
+        if (!periodStart.isBefore(periodEnd)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания");
+        }
+        if (periodStart.plus(MAX_AVAILABILITY_PERIOD).isBefore(periodEnd)) {
+            throw new ValidationException("Период не может быть длиннее " + MAX_AVAILABILITY_PERIOD.toDays() + " дней");
+        }
+
+        List<TimeIntervalDto> bookings;
+        if (bookingTimeline.isReady()) {
+            bookings = bookingTimeline.findOverlapping(itemId, periodStart, periodEnd)
+                    .stream()
+                    .filter(interval -> BUSY_STATUSES.contains(interval.getStatus()))
+                    .map(interval -> new TimeIntervalDto(interval.getStart(), interval.getEnd()))
+                    .collect(Collectors.toList());
+        } else {
+            bookings = bookingRepository.findAllByItemIdAndStatusInAndStartBeforeAndEndAfterOrderByStart(itemId, BUSY_STATUSES,
+                            periodEnd, periodStart)
+                    .stream()
+                    .map(booking -> new TimeIntervalDto(booking.getStart(), booking.getEnd()))
+                    .collect(Collectors.toList());
+        }
+
+        // Соседние брони без промежутка между ними сливаются в один занятый промежуток
+        List<TimeIntervalDto> busy = new ArrayList<>();
+        List<TimeIntervalDto> free = new ArrayList<>();
+        LocalDateTime cursor = periodStart;
+        for (TimeIntervalDto booking : bookings) {
+            LocalDateTime start = booking.getStart().isBefore(periodStart) ? periodStart : booking.getStart();
+            LocalDateTime end = booking.getEnd().isAfter(periodEnd) ? periodEnd : booking.getEnd();
+            if (!busy.isEmpty() && !start.isAfter(cursor)) {
+                TimeIntervalDto last = busy.get(busy.size() - 1);
+                if (end.isAfter(last.getEnd())) {
+                    last.setEnd(end);
+                }
+            } else {
+                if (start.isAfter(cursor)) {
+                    free.add(new TimeIntervalDto(cursor, start));
+                }
+                busy.add(new TimeIntervalDto(start, end));
+            }
+            if (end.isAfter(cursor)) {
+                cursor = end;
+            }
+        }
+        if (cursor.isBefore(periodEnd)) {
+            free.add(new TimeIntervalDto(cursor, periodEnd));
+        }
+        return new ItemAvailabilityDto(itemId, periodStart, periodEnd, busy, free);
+    }
+
     // Приватный метод для проверки существования пользователя по идентификатору
     private void userExistenceCheck(long id) {
         if (!userRepository.existsById(id)) {
@@ -173,13 +354,59 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
-    // Приватный метод для проверки прав доступа к предмету
-    private void accessCheck(long userIdFromItem, long userIdFromRequest) {
-        if (userIdFromItem != userIdFromRequest) {
+    // Приватный метод для проверки прав доступа к предмету: владелец берется из индекса, сущность Item не загружается
+    private void accessCheck(long itemId, long userId) {
+        if (!itemOwnerIndex.isOwner(userId, itemId)) {
             throw new WrongAccessException("Недостаточно прав для редактирования");
         }
     }
 
+    // Приватный метод для сборки списка предметов: бронирования и комментарии загружаются одним запросом на весь список
+    private List<ItemDtoFull> toItemDtoFullList(List<Item> items, boolean withBookings) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<CommentDtoFull>> comments = commentRepository.findAllByItemIdIn(itemIds)
+                .stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::toCommentDtoFull, Collectors.toList())));
+
+        if (withBookings && bookingTimeline.isReady()) {
+            LocalDateTime now = LocalDateTime.now();
+            return items.stream()
+                    .map(item -> ItemMapper.toItemDtoFullFromIntervals(item,
+                            bookingTimeline.findLast(item.getId(), now).orElse(null),
+                            bookingTimeline.findNext(item.getId(), now).orElse(null),
+                            comments.getOrDefault(item.getId(), new ArrayList<>())))
+                    .collect(Collectors.toList());
+        }
+
+        Map<Long, Booking> lastBookings = new HashMap<>();
+        Map<Long, Booking> nextBookings = new HashMap<>();
+        if (withBookings) {
+            LocalDateTime now = LocalDateTime.now();
+            // Тот же выбор, что у BookingTimeline: последнее начавшееся и ближайшее будущее, без отклонённых
+            for (Booking booking : bookingRepository.findLastAndNextNotRejectedByItemIds(itemIds, now)) {
+                if (booking.getStart().isBefore(now)) {
+                    lastBookings.put(booking.getItem().getId(), booking);
+                } else {
+                    nextBookings.put(booking.getItem().getId(), booking);
+                }
+            }
+        }
+
+        return items.stream()
+                .map(item -> ItemMapper.toItemDtoFull(item,
+                        lastBookings.get(item.getId()),
+                        nextBookings.get(item.getId()),
+                        comments.getOrDefault(item.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+    }
+
     // Приватный метод для получения комментариев к предмету
     private List<CommentDtoFull> getComments(long itemId) {
         return commentRepository.findAllByItemId(itemId)
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item.summary;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Строка read-модели item_summary: данные для списка вещей владельца, которые иначе собираются из броней
+// и комментариев при каждом запросе. Последнее и следующее бронирование верны до next_booking_start,
+// последние комментарии хранятся в JSON (CommentDtoFull) в порядке добавления
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "item_summary", schema = "public")
+public class ItemSummary {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+    @Column(name = "next_booking_start")
+    private LocalDateTime nextBookingStart;
+    @Column(name = "comment_count", nullable = false)
+    private int commentCount;
+    @Column(name = "latest_comments")
+    private String latestComments;
+    @Column(name = "updated", nullable = false)
+    private LocalDateTime updated;
+
+    public ItemSummary(Long itemId) {
+        this.itemId = itemId;
+    }
+}
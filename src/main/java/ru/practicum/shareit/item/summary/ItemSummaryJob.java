@@ -0,0 +1,84 @@
+package ru.practicum.shareit.item.summary;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Плановый пересчет item_summary: refreshExpired обновляет сводки, у которых началось следующее бронирование,
+// rebuild пересчитывает сводки всех предметов пачками и исправляет расхождения - изменения в обход сервисов,
+// неудавшиеся пересчеты после коммита, смену имени автора комментария. Первый rebuild выполняется при старте
+@Slf4j
+@Component
+public class ItemSummaryJob {
+    private final ItemSummaryService itemSummaryService;
+    private final ItemSummaryRepository itemSummaryRepository;
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ItemSummaryJob(ItemSummaryService itemSummaryService, ItemSummaryRepository itemSummaryRepository,
+                          ItemRepository itemRepository,
+                          @Value("${shareit.items.summary.jobs.enabled:true}") boolean enabled,
+                          @Value("${shareit.items.summary.batch-size:500}") int batchSize) {
+        this.itemSummaryService = itemSummaryService;
+        this.itemSummaryRepository = itemSummaryRepository;
+        this.itemRepository = itemRepository;
+        this.enabled = enabled && itemSummaryService.isEnabled();
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.summary.refresh-interval:60000}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            refreshExpired();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.summary.rebuild-interval:3600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Возвращает количество обновленных сводок
+    public int refreshExpired() {
+        int total = 0;
+        List<Long> ids;
+        do {
+            ids = itemSummaryRepository.findExpiredIds(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            itemSummaryService.refresh(ids);
+            total += ids.size();
+        } while (ids.size() == batchSize);
+        return total;
+    }
+
+    // Возвращает количество пересчитанных сводок; ошибка в пачке не останавливает пересчет остальных
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        int total = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = itemRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            try {
+                itemSummaryService.refresh(ids);
+                total += ids.size();
+            } catch (RuntimeException e) {
+                log.warn("Сводки предметов {}..{} не пересчитаны: {}", ids.get(0), ids.get(ids.size() - 1), e.getMessage());
+            }
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == batchSize);
+        log.info("Сводки предметов пересчитаны: {} за {} мс", total, System.currentTimeMillis() - started);
+        return total;
+    }
+}
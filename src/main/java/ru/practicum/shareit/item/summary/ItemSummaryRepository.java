@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.summary;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemSummaryRepository extends JpaRepository<ItemSummary, Long> {
+    // Блокировки берутся в порядке id: параллельные пересчеты пересекающихся наборов не взаимоблокируются
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ItemSummary as s where s.itemId in :itemIds order by s.itemId")
+    List<ItemSummary> findAllForUpdate(Collection<Long> itemIds);
+
+    // Сводки, у которых следующее бронирование уже началось
+    @Query("select s.itemId from ItemSummary as s where s.nextBookingStart <= :date order by s.itemId")
+    List<Long> findExpiredIds(LocalDateTime date, Pageable pageable);
+}
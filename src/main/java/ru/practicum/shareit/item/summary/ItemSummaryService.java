@@ -0,0 +1,266 @@
+package ru.practicum.shareit.item.summary;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.dto.CommentDtoFull;
+import ru.practicum.shareit.comment.mapper.CommentMapper;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.util.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Read-модель item_summary для списка вещей владельца: GET /items читает страницу предметов и их сводки
+// по первичному ключу вместо выборки броней и комментариев (все комментарии читаются только для предметов,
+// у которых их больше, чем помещается в сводку). Сводка предмета пересчитывается из броней и комментариев целиком
+// (пересчет идемпотентен) после коммита их изменений, в отдельной транзакции под блокировкой строки сводки.
+// Если пересчет не удался, сводка остается старой до планового пересчета ItemSummaryJob. Последнее и следующее
+// бронирование зависят от текущего момента: когда следующее бронирование начинается, сводка устаревает -
+// для ответа такие предметы досчитываются запросом, а в таблице их обновляет ItemSummaryJob
+@Slf4j
+@Component
+public class ItemSummaryService {
+    private static final TypeReference<List<CommentDtoFull>> COMMENTS = new TypeReference<>() {
+    };
+    private static final int ATTEMPTS = 2;
+
+    private final ItemSummaryRepository itemSummaryRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate newTransaction;
+    private final boolean enabled;
+    private final int latestComments;
+
+    public ItemSummaryService(ItemSummaryRepository itemSummaryRepository, ItemRepository itemRepository,
+                              BookingRepository bookingRepository,
+                              CommentRepository commentRepository, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${shareit.items.summary.enabled:true}") boolean enabled,
+                              @Value("${shareit.items.summary.latest-comments:10}") int latestComments) {
+        this.itemSummaryRepository = itemSummaryRepository;
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.commentRepository = commentRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // После коммита ресурсы завершенной транзакции еще привязаны к потоку, поэтому нужна новая транзакция
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.latestComments = latestComments;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Страница предметов владельца; вызывается в read-only транзакции сервиса предметов. Страница выбирается
+    // по индексу владельца без сводок, затем сводки страницы читаются по первичному ключу: иначе БД соединяет
+    // со сводками (и их комментариями) все предметы владельца до сортировки и отсечения страницы
+    public List<ItemDtoFull> getOwnerItems(long userId, int from, int size) {
+        List<Item> items = itemRepository.findByUserId(userId, OffsetPageRequest.of(from, size, Sort.by("id")));
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ItemSummary> summaries = itemSummaryRepository.findAllById(items.stream()
+                        .map(Item::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(ItemSummary::getItemId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        // Устаревшие сводки досчитываются в копиях: в read-only транзакции таблица не изменяется
+        Map<Long, ItemSummary> expired = summaries.values().stream()
+                .filter(summary -> isExpired(summary, now))
+                .collect(Collectors.toMap(ItemSummary::getItemId, summary -> new ItemSummary(summary.getItemId(), null, null,
+                        null, null, null, summary.getCommentCount(), summary.getLatestComments(), summary.getUpdated())));
+        if (!expired.isEmpty()) {
+            applyBookings(expired, now);
+        }
+        // В сводке хранятся только latest-comments последних комментариев. Ответ, как и без сводок, содержит
+        // все комментарии: для предметов, у которых их больше, комментарии читаются одним запросом на страницу
+        Map<Long, List<CommentDtoFull>> comments = new HashMap<>();
+        List<Long> truncated = new ArrayList<>();
+        for (Item item : items) {
+            ItemSummary summary = summaries.get(item.getId());
+            List<CommentDtoFull> stored = readComments(summary);
+            comments.put(item.getId(), stored);
+            if (summary != null && summary.getCommentCount() > stored.size()) {
+                truncated.add(item.getId());
+            }
+        }
+        if (!truncated.isEmpty()) {
+            truncated.forEach(itemId -> comments.put(itemId, new ArrayList<>()));
+            commentRepository.findAllByItemIdIn(truncated)
+                    .stream()
+                    .sorted(Comparator.comparing(Comment::getId))
+                    .forEach(comment -> comments.get(comment.getItem().getId()).add(CommentMapper.toCommentDtoFull(comment)));
+        }
+        return items.stream()
+                .map(item -> ItemMapper.toItemDtoFullFromSummary(item,
+                        expired.getOrDefault(item.getId(), summaries.get(item.getId())), comments.get(item.getId())))
+                .collect(Collectors.toList());
+    }
+
+    // Вызываются сервисами при изменении броней и комментариев предметов: пересчет после коммита
+    public void bookingsChanged(Collection<Long> itemIds) {
+        afterCommit(itemIds);
+    }
+
+    public void commentAdded(long itemId) {
+        afterCommit(List.of(itemId));
+    }
+
+    // Пересчет сводок предметов в текущей транзакции (или в новой, если ее нет)
+    public void refresh(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        transaction.executeWithoutResult(status -> recompute(itemIds));
+    }
+
+    private void afterCommit(Collection<Long> itemIds) {
+        if (!enabled || itemIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new TreeSet<>(itemIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshQuietly(ids);
+                }
+            });
+        } else {
+            refreshQuietly(ids);
+        }
+    }
+
+    // Изменение уже зафиксировано, поэтому ошибка пересчета не пробрасывается. Если ту же строку сводки
+    // одновременно создал другой пересчет, повторная попытка найдет ее и заблокирует
+    private void refreshQuietly(Collection<Long> itemIds) {
+        for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+            try {
+                newTransaction.executeWithoutResult(status -> recompute(itemIds));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == ATTEMPTS) {
+                    log.warn("Сводки предметов {} не пересчитаны: {}", itemIds, e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Сводки предметов {} не пересчитаны: {}", itemIds, e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    private void recompute(Collection<Long> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemSummary> summaries = itemSummaryRepository.findAllForUpdate(itemIds)
+                .stream()
+                .collect(Collectors.toMap(ItemSummary::getItemId, Function.identity()));
+        List<ItemSummary> created = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            if (!summaries.containsKey(itemId)) {
+                ItemSummary summary = new ItemSummary(itemId);
+                summaries.put(itemId, summary);
+                created.add(summary);
+            }
+        }
+        applyBookings(summaries, now);
+        applyComments(summaries);
+        summaries.values().forEach(summary -> summary.setUpdated(now));
+        // Загруженные сводки обновит проверка изменений при коммите, новые нужно сохранить явно
+        itemSummaryRepository.saveAll(created);
+    }
+
+    private void applyBookings(Map<Long, ItemSummary> summaries, LocalDateTime now) {
+        for (ItemSummary summary : summaries.values()) {
+            summary.setLastBookingId(null);
+            summary.setLastBookerId(null);
+            summary.setNextBookingId(null);
+            summary.setNextBookerId(null);
+            summary.setNextBookingStart(null);
+        }
+        for (Booking booking : bookingRepository.findLastAndNextNotRejectedByItemIds(summaries.keySet(), now)) {
+            ItemSummary summary = summaries.get(booking.getItem().getId());
+            if (booking.getStart().isBefore(now)) {
+                summary.setLastBookingId(booking.getId());
+                summary.setLastBookerId(booking.getBooker().getId());
+            } else {
+                summary.setNextBookingId(booking.getId());
+                summary.setNextBookerId(booking.getBooker().getId());
+                summary.setNextBookingStart(booking.getStart());
+            }
+        }
+    }
+
+    private void applyComments(Map<Long, ItemSummary> summaries) {
+        Map<Long, List<Comment>> comments = new HashMap<>();
+        for (Comment comment : commentRepository.findAllByItemIdIn(summaries.keySet())) {
+            comments.computeIfAbsent(comment.getItem().getId(), id -> new ArrayList<>()).add(comment);
+        }
+        for (ItemSummary summary : summaries.values()) {
+            List<Comment> itemComments = comments.getOrDefault(summary.getItemId(), List.of());
+            List<CommentDtoFull> latest = itemComments.stream()
+                    .sorted(Comparator.comparing(Comment::getId))
+                    .skip(Math.max(0, itemComments.size() - latestComments))
+                    .map(CommentMapper::toCommentDtoFull)
+                    .collect(Collectors.toList());
+            summary.setCommentCount(itemComments.size());
+            summary.setLatestComments(writeComments(latest));
+        }
+    }
+
+    private boolean isExpired(ItemSummary summary, LocalDateTime now) {
+        return summary != null && summary.getNextBookingStart() != null && !summary.getNextBookingStart().isAfter(now);
+    }
+
+    private String writeComments(List<CommentDtoFull> comments) {
+        try {
+            return objectMapper.writeValueAsString(comments);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сохранить комментарии в сводку", e);
+        }
+    }
+
+    private List<CommentDtoFull> readComments(ItemSummary summary) {
+        if (summary == null || summary.getLatestComments() == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(summary.getLatestComments(), COMMENTS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать комментарии из сводки предмета " + summary.getItemId(), e);
+        }
+    }
+}
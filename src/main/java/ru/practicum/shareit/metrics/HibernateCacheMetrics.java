@@ -0,0 +1,38 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+
+// Попадания и промахи кэша второго уровня по регионам (cache.gets с тегами cache=<регион>, result=hit/miss).
+// Счетчики берутся из статистики JCache, а не из статистики Hibernate: hibernate.generate_statistics добавляет
+// накладные расходы на каждый запрос и в работе выключен. Hibernate создает регионы с выключенной статистикой
+// JCache (она перекрывает application.conf), поэтому статистика включается здесь
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (!(regionFactory instanceof JCacheRegionFactory)) {
+            return;
+        }
+        CacheManager cacheManager = ((JCacheRegionFactory) regionFactory).getCacheManager();
+        for (String region : cacheManager.getCacheNames()) {
+            cacheManager.enableStatistics(region, true);
+            JCacheMetrics.monitor(registry, cacheManager.getCache(region));
+        }
+    }
+}
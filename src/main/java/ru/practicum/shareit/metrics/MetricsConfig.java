@@ -0,0 +1,38 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private final MeterRegistry meterRegistry;
+    private final RepositoryCallCounter repositoryCallCounter;
+    private final SqlStatementCounter sqlStatementCounter;
+
+    public MetricsConfig(MeterRegistry meterRegistry, RepositoryCallCounter repositoryCallCounter,
+                         SqlStatementCounter sqlStatementCounter) {
+        this.meterRegistry = meterRegistry;
+        this.repositoryCallCounter = repositoryCallCounter;
+        this.sqlStatementCounter = sqlStatementCounter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new PerRequestCountInterceptor(meterRegistry, repositoryCallCounter,
+                "shareit.repository.calls.per.request", "Количество вызовов репозиториев за HTTP-запрос"));
+        registry.addInterceptor(new PerRequestCountInterceptor(meterRegistry, sqlStatementCounter,
+                "shareit.hibernate.statements.per.request", "Количество SQL-выражений Hibernate за HTTP-запрос"));
+    }
+
+    // Hibernate получает счетчик как готовый бин, а не создает свой экземпляр по имени класса;
+    // static - чтобы фабрика EntityManager не зависела от интерцепторов этой конфигурации
+    @Bean
+    public static HibernatePropertiesCustomizer sqlStatementInspectorCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Записывает значение счетчика за один HTTP-запрос в разрезе метода и шаблона URI. Асинхронные ответы
+// (SSE, NDJSON) освобождают поток запроса до завершения: счетчик этого потока сбрасывается без записи,
+// иначе он остался бы в потоке и засчитал бы события следующих задач
+public class PerRequestCountInterceptor implements AsyncHandlerInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final PerRequestCounter counter;
+    private final String meterName;
+    private final String description;
+
+    public PerRequestCountInterceptor(MeterRegistry meterRegistry, PerRequestCounter counter, String meterName,
+                                      String description) {
+        this.meterRegistry = meterRegistry;
+        this.counter = counter;
+        this.meterName = meterName;
+        this.description = description;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        counter.start();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        counter.finish();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int count = counter.finish();
+        if (count < 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(meterName)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(meterRegistry)
+                .record(count);
+    }
+}
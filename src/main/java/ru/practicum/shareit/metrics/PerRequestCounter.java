@@ -0,0 +1,26 @@
+package ru.practicum.shareit.metrics;
+
+// Счетчик событий в рамках текущего HTTP-запроса: подсчет начинает и завершает PerRequestCountInterceptor
+// в потоке, который обрабатывает запрос
+public class PerRequestCounter {
+    private final ThreadLocal<int[]> counts = new ThreadLocal<>();
+
+    public void start() {
+        counts.set(new int[1]);
+    }
+
+    // События вне HTTP-запроса (фоновые задачи, старт приложения) не учитываются
+    public void increment() {
+        int[] counter = counts.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+    }
+
+    // Возвращает количество событий за запрос и сбрасывает счетчик; -1, если подсчет не начинался
+    public int finish() {
+        int[] counter = counts.get();
+        counts.remove();
+        return counter == null ? -1 : counter[0];
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// Учитывает каждый вызов метода Spring Data репозитория: общий счетчик по репозиторию и методу и счетчик запроса
+@Aspect
+@Component
+public class RepositoryCallAspect {
+    private final MeterRegistry meterRegistry;
+    private final RepositoryCallCounter repositoryCallCounter;
+
+    public RepositoryCallAspect(MeterRegistry meterRegistry, RepositoryCallCounter repositoryCallCounter) {
+        this.meterRegistry = meterRegistry;
+        this.repositoryCallCounter = repositoryCallCounter;
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+        repositoryCallCounter.increment();
+        Counter.builder("shareit.repository.calls")
+                .description("Вызовы методов репозиториев")
+                .tag("repository", repositoryName(joinPoint))
+                .tag("method", joinPoint.getSignature().getName())
+                .register(meterRegistry)
+                .increment();
+        return joinPoint.proceed();
+    }
+
+    private String repositoryName(ProceedingJoinPoint joinPoint) {
+        for (Class<?> type : joinPoint.getThis().getClass().getInterfaces()) {
+            if (type.getName().startsWith("ru.practicum.shareit")) {
+                return type.getSimpleName();
+            }
+        }
+        return joinPoint.getSignature().getDeclaringType().getSimpleName();
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.metrics;
+
+import org.springframework.stereotype.Component;
+
+// Счетчик обращений к репозиториям в рамках текущего HTTP-запроса (увеличивается RepositoryCallAspect)
+@Component
+public class RepositoryCallCounter extends PerRequestCounter {
+}
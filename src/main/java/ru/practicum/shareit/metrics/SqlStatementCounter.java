@@ -0,0 +1,14 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+// Считает SQL-выражения, которые Hibernate подготовил в рамках текущего HTTP-запроса; сам текст не меняет
+@Component
+public class SqlStatementCounter extends PerRequestCounter implements StatementInspector {
+    @Override
+    public String inspect(String sql) {
+        increment();
+        return sql;
+    }
+}
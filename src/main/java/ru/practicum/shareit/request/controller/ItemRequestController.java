@@ -1,11 +1,13 @@
 package ru.practicum.shareit.request.controller;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.util.CursorPage;
 
-import javax.validation.Valid;
+import jakarta.validation.Valid;
 import java.util.Collection;
 
 @RestController
@@ -35,6 +37,19 @@ public class ItemRequestController {
         return itemRequestService.getAllRequests(userId, from, size);
     }
 
+    // Выдача по курсору: следующая страница запрашивается по значению заголовка X-Next-Cursor
+    @GetMapping(path = "/all", params = "cursor")
+    public ResponseEntity<Collection<ItemRequestDtoFull>> getAllRequestsByCursor(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                                 @RequestParam String cursor,
+                                                                                 @RequestParam(required = false, defaultValue = "10") Integer size) {
+        CursorPage<ItemRequestDtoFull> page = itemRequestService.getAllRequestsByCursor(userId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
+
     @GetMapping("/{requestId}")
     public ItemRequestDtoFull getItemRequestById(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long requestId) {
         return itemRequestService.getItemRequestById(userId, requestId);
@@ -3,8 +3,9 @@ package ru.practicum.shareit.request.dto;
 import lombok.*;
 import ru.practicum.shareit.item.dto.ItemDtoForRequest;
 
-import javax.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter
@@ -19,4 +20,9 @@ public class ItemRequestDtoFull {
     private LocalDateTime created;
     private long requester;
     private List<ItemDtoForRequest> items;
+
+    // Конструктор для выборки в DTO из JPQL: ответы на запрос заполняются отдельно
+    public ItemRequestDtoFull(Long id, String description, LocalDateTime created, long requester) {
+        this(id, description, created, requester, new ArrayList<>());
+    }
 }
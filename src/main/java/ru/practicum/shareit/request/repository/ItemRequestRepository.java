@@ -1,15 +1,40 @@
 package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface ItemRequestRepository extends PagingAndSortingRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(long requesterId);
+public interface ItemRequestRepository extends CrudRepository<ItemRequest, Long>, PagingAndSortingRepository<ItemRequest, Long> {
+    // Выборки для чтения сразу в ItemRequestDtoFull: requester.id берется из внешнего ключа без соединения с users
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestDtoFull(r.id, r.description, r.created, r.requester.id) " +
+            "from ItemRequest as r " +
+            "where r.id = :id")
+    Optional<ItemRequestDtoFull> findDtoById(long id);
 
-    List<ItemRequest> findAllByRequesterIdNotOrderByCreatedDesc(long userId);
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestDtoFull(r.id, r.description, r.created, r.requester.id) " +
+            "from ItemRequest as r " +
+            "where r.requester.id = :requesterId " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestDtoFull> findDtosByRequesterId(long requesterId);
 
-    List<ItemRequest> findAllByRequesterIdNot(long userId, Pageable pageable);
-}
\ No newline at end of file
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestDtoFull(r.id, r.description, r.created, r.requester.id) " +
+            "from ItemRequest as r " +
+            "where r.requester.id <> :userId " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestDtoFull> findDtosByRequesterIdNot(long userId, Pageable pageable);
+
+    // Следующая страница чужих запросов после позиции (created, id) в порядке убывания
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestDtoFull(r.id, r.description, r.created, r.requester.id) " +
+            "from ItemRequest as r " +
+            "where r.requester.id <> :userId " +
+            "and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestDtoFull> findDtosByRequesterIdNotBefore(long userId, LocalDateTime created, long id, Pageable pageable);
+}
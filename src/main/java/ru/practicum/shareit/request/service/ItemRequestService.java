@@ -2,6 +2,7 @@ package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
+import ru.practicum.shareit.util.CursorPage;
 
 import java.util.Collection;
 
@@ -12,6 +13,8 @@ public interface ItemRequestService {
 
     Collection<ItemRequestDtoFull> getAllRequests(Long userId, Integer from, Integer size);
 
+    CursorPage<ItemRequestDtoFull> getAllRequestsByCursor(Long userId, String cursor, Integer size);
+
     ItemRequestDtoFull getItemRequestById(Long userId, Long id);
 
 }
@@ -1,11 +1,11 @@
 package ru.practicum.shareit.request.service;
 
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
-import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDtoForRequest;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
@@ -13,15 +13,16 @@ import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.CursorPage;
+import ru.practicum.shareit.util.OffsetPageRequest;
+import ru.practicum.shareit.util.PageCursor;
+import ru.practicum.shareit.util.Paging;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
+import java.util.Map;
 
 @Service
 public class ItemRequestServiceImpl implements ItemRequestService {
@@ -35,6 +36,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         this.itemRepository = itemRepository;
     }
 
+    @Transactional
     public ItemRequestDto createItemRequest(Long userId, ItemRequestDto itemRequestDto) {
         checkUserId(userId);
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto, userRepository.findById(userId).get());
@@ -42,49 +44,66 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return ItemRequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
     }
 
+    @Transactional(readOnly = true)
     public Collection<ItemRequestDtoFull> getAllUsersRequests(long userId) {
         checkUserId(userId);
-        return itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(userId)
-                .stream()
-                .map(itemRequest -> ItemRequestMapper.toItemRequestDtoFull(itemRequest, itemRepository.findByRequestId(itemRequest.getId())))
-                .collect(toList());
+        return withItems(itemRequestRepository.findDtosByRequesterId(userId));
     }
 
+    @Transactional(readOnly = true)
     public Collection<ItemRequestDtoFull> getAllRequests(Long userId, Integer from, Integer size) {
         checkUserId(userId);
-        if (from < 0) {
-            throw new ValidationException("Индекс первого элемента должен быть положительным");
+        Paging.checkPage(from, size);
+        return withItems(itemRequestRepository.findDtosByRequesterIdNot(userId, OffsetPageRequest.of(from, size, Sort.unsorted())));
+    }
+
+    // Постраничная выдача чужих запросов по курсору (created, id) вместо смещения
+    @Transactional(readOnly = true)
+    public CursorPage<ItemRequestDtoFull> getAllRequestsByCursor(Long userId, String cursor, Integer size) {
+        checkUserId(userId);
+        Paging.checkPage(0, size);
+        PageCursor position = PageCursor.decode(cursor);
+        List<ItemRequestDtoFull> requests;
+        if (position == null) {
+            requests = itemRequestRepository.findDtosByRequesterIdNot(userId, PageRequest.of(0, size));
+        } else {
+            requests = itemRequestRepository.findDtosByRequesterIdNotBefore(userId, position.getDate(), position.getId(),
+                    PageRequest.of(0, size));
         }
-        if (size <= 0) {
-            throw new ValidationException("Количество элементов для отображения должно быть больше нуля");
+        String nextCursor = null;
+        if (requests.size() == size) {
+            ItemRequestDtoFull last = requests.get(requests.size() - 1);
+            nextCursor = new PageCursor(last.getCreated(), last.getId()).encode();
         }
-        Set<ItemRequestDtoFull> itemRequestDtoFullSet = new HashSet<>();
-        Pageable allRequests =
-                PageRequest.of(0, size, Sort.by("created").descending());
-        List<ItemRequest> requests =
-                itemRequestRepository.findAllByRequesterIdNot(userId, allRequests);
-        itemRequestDtoFullSet
-                .addAll(requests.stream().map(itemRequest -> ItemRequestMapper.toItemRequestDtoFull(itemRequest, itemRepository.findByRequestId(itemRequest.getId())))
-                        .collect(toSet()));
-        return itemRequestDtoFullSet;
+        return new CursorPage<>(withItems(requests), nextCursor);
     }
 
+    @Transactional(readOnly = true)
     public ItemRequestDtoFull getItemRequestById(Long userId, Long id) {
         checkUserId(userId);
-        checkRequestId(id);
-        ItemRequest request = itemRequestRepository.findById(id).get();
-        return ItemRequestMapper.toItemRequestDtoFull(request, itemRepository.findByRequestId(request.getId()));
+        ItemRequestDtoFull request = itemRequestRepository.findDtoById(id)
+                .orElseThrow(() -> new NotFoundException("Запрос с id " + id + " не найден"));
+        return withItems(List.of(request)).get(0);
     }
 
-    private void checkUserId(long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+    // Ответы на все запросы страницы загружаются одним запросом и раскладываются по запросам; порядок запросов сохраняется
+    private List<ItemRequestDtoFull> withItems(List<ItemRequestDtoFull> requests) {
+        if (requests.isEmpty()) {
+            return requests;
+        }
+        Map<Long, ItemRequestDtoFull> requestsById = new LinkedHashMap<>();
+        for (ItemRequestDtoFull request : requests) {
+            requestsById.put(request.getId(), request);
+        }
+        for (ItemDtoForRequest item : itemRepository.findItemDtosByRequestIdIn(requestsById.keySet())) {
+            requestsById.get(item.getRequestId()).getItems().add(item);
         }
+        return requests;
     }
 
-    private void checkRequestId(long requestId) {
-        if (!itemRequestRepository.existsById(requestId)) {
-            throw new NotFoundException("Запрос с id " + requestId + " не найден");
+    private void checkUserId(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
         }
     }
 }
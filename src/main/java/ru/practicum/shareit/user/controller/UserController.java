@@ -1,12 +1,15 @@
 package ru.practicum.shareit.user.controller;
 
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.batch.BatchResultDto;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.validation.Exist;
 import ru.practicum.shareit.validation.New;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 @RestController
@@ -24,6 +27,12 @@ public class UserController {
         return userService.createUser(dto);
     }
 
+    // Создает пользователей из JSON-массива (массив читается потоково) и возвращает итог с ошибками по строкам.
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResultDto importUsers(InputStream body) {
+        return userService.importUsers(body);
+    }
+
     // Обновляет имя пользователя по его ID и возвращает его обновленный DTO.
     @PatchMapping("/{userId}")
     public UserDto updateUserName(@RequestBody @Validated(Exist.class)  UserDto dto, @PathVariable long userId) {
@@ -8,8 +8,8 @@ import ru.practicum.shareit.validation.ExistUpdateEmail;
 import ru.practicum.shareit.validation.ExistUpdateName;
 import ru.practicum.shareit.validation.New;
 
-import javax.validation.constraints.Email;
-import javax.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
 
 @Data
 @Builder
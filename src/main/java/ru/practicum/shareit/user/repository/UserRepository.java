@@ -3,5 +3,8 @@ package ru.practicum.shareit.user.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.user.model.User;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-}
\ No newline at end of file
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    // Реализация - в UserRepositoryCustomImpl (кэш положительных ответов), объявление снимает неоднозначность с CrudRepository
+    @Override
+    boolean existsById(Long id);
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.user.repository;
+
+public interface UserRepositoryCustom {
+    // Проверка существования пользователя: положительный ответ кэшируется (ExistenceCache), сущность не загружается
+    boolean existsById(Long id);
+
+    // Сброс закэшированного ответа после изменения или удаления пользователя
+    void evictExistence(long id);
+}
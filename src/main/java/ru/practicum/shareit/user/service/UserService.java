@@ -1,7 +1,9 @@
 package ru.practicum.shareit.user.service;
 
+import ru.practicum.shareit.batch.BatchResultDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 public interface UserService {
@@ -14,4 +16,6 @@ public interface UserService {
     Collection<UserDto> getAllUsers();
 
     UserDto getUserById(long id);
+
+    BatchResultDto importUsers(InputStream body);
 }
@@ -2,31 +2,40 @@ package ru.practicum.shareit.user.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.batch.BatchImporter;
+import ru.practicum.shareit.batch.BatchResultDto;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.validation.New;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
     private final UserRepository repository;
+    private final BatchImporter batchImporter;
 
     @Autowired
-    public UserServiceImpl(UserRepository repository) {
+    public UserServiceImpl(UserRepository repository, BatchImporter batchImporter) {
         this.repository = repository;
+        this.batchImporter = batchImporter;
     }
 
     // Метод для создания нового пользователя
+    @Transactional
     public UserDto createUser(UserDto dto) {
         User user = repository.save(UserMapper.toUser(dto));
         return UserMapper.toUserDto(user);
     }
 
     // Метод для обновления информации о пользователе
+    @Transactional
     public UserDto updateUser(UserDto dto, long userId) {
         User user = repository.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден."));
         user.setId(userId);
@@ -37,18 +46,22 @@ public class UserServiceImpl implements UserService {
             user.setEmail(dto.getEmail());
         }
         repository.save(user);
+        repository.evictExistence(userId);
         return UserMapper.toUserDto(user);
     }
 
     // Метод для удаления пользователя по ID
+    @Transactional
     public void deleteUser(long id) {
         if (!repository.existsById(id)) {
             throw new NotFoundException("Пользователь с id " + id + " не найден.");
         }
         repository.deleteById(id);
+        repository.evictExistence(id);
     }
 
     // Метод для получения списка всех пользователей
+    @Transactional(readOnly = true)
     public Collection<UserDto> getAllUsers() {
         return repository.findAll()
                 .stream()
@@ -57,8 +70,17 @@ public class UserServiceImpl implements UserService {
     }
 
     // Метод для получения информации о пользователе по ID
+    @Transactional(readOnly = true)
     public UserDto getUserById(long id) {
         User user = repository.findById(id).orElseThrow(() -> new NotFoundException("Пользователь с id " + id + " не найден."));
         return UserMapper.toUserDto(user);
     }
+
+    // Метод для пакетного создания пользователей из JSON-массива; ошибочные строки попадают в итог и не прерывают импорт
+    public BatchResultDto importUsers(InputStream body) {
+        return batchImporter.importJsonArray(body, UserDto.class, New.class, dto -> {
+            dto.setId(null);
+            return UserMapper.toUser(dto);
+        }, repository, user -> { });
+    }
 }
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.LongPredicate;
+
+// Кэш положительных ответов на проверку существования сущности по id. Отрицательный ответ не кэшируется:
+// сущность, созданная после проверки, находится сразу. Запись сбрасывается после коммита изменения или удаления
+// сущности в этом экземпляре приложения; удаление другим экземпляром становится видно не позже expireAfterWrite.
+// Попадания и промахи публикуются как cache.gets с тегом cache=<name>
+public class ExistenceCache {
+    private final Cache<Long, Boolean> cache;
+    private final LongPredicate loader;
+
+    public ExistenceCache(String name, LongPredicate loader, long maximumSize, Duration expireAfterWrite,
+                          MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        }
+    }
+
+    public boolean exists(long id) {
+        if (cache.getIfPresent(id) != null) {
+            return true;
+        }
+        boolean exists = loader.test(id);
+        if (exists) {
+            cache.put(id, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    // В транзакции - только после коммита, иначе сразу
+    public void evict(long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        } else {
+            cache.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.util;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+// Общая проверка параметров постраничного вывода по смещению: from - номер первой строки выдачи, size - размер страницы
+public class Paging {
+    public static void checkPage(int from, int size) {
+        if (from < 0) {
+            throw new ValidationException("Индекс первого элемента должен быть положительным");
+        }
+        if (size <= 0) {
+            throw new ValidationException("Количество элементов для отображения должно быть больше нуля");
+        }
+    }
+}
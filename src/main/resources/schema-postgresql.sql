@@ -0,0 +1,29 @@
+-- Дополнения к schema.sql, которые есть только в PostgreSQL
+
+CREATE INDEX IF NOT EXISTS idx_items_search ON items
+    USING gin ((setweight(to_tsvector('simple', name), 'A') || setweight(to_tsvector('simple', description), 'B')));
+
+-- Активные (WAITING и APPROVED) бронирования одного предмета не могут пересекаться по времени.
+-- Скрипт выполняется при каждом старте: ограничение добавляется только один раз, иначе каждый старт
+-- перестраивал бы GiST-индекс под ACCESS EXCLUSIVE блокировкой таблицы. Тело DO записано строкой в одинарных
+-- кавычках, а не в $$: скрипт делится на выражения по ';' вне кавычек
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = ''bookings_no_overlap'' AND conrelid = ''bookings''::regclass) THEN
+        ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap
+            EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+            WHERE (status IN (''WAITING'', ''APPROVED''));
+    END IF;
+END';
+
+-- Таблицы, созданные до перехода на последовательности, брали id из IDENTITY: второй источник id убирается,
+-- а последовательности продолжают с максимального занятого id
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM users), (SELECT last_value FROM users_seq)));
+SELECT setval('items_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM items), (SELECT last_value FROM items_seq)));
@@ -1,5 +1,11 @@
+-- id пользователей и предметов Hibernate берёт из последовательностей блоками по 50 (allocationSize в сущностях),
+-- поэтому их вставки группируются в JDBC-пакеты; с IDENTITY пакетная вставка невозможна. Вставки без id
+-- (SQL-скрипты, заполнение данных для бенчмарков) получают id из тех же последовательностей
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS users (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT DEFAULT nextval('users_seq') PRIMARY KEY,
     name varchar(255) NOT NULL,
     email varchar(512) NOT NULL UNIQUE
 );
@@ -13,7 +19,7 @@ CREATE TABLE IF NOT EXISTS requests (
 );
 
 CREATE TABLE IF NOT EXISTS items (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT DEFAULT nextval('items_seq') PRIMARY KEY,
     name varchar(255) NOT NULL,
     description varchar(1000) NOT NULL,
     is_available boolean,
@@ -44,4 +50,57 @@ CREATE TABLE IF NOT EXISTS comments (
     created timestamp,
     CONSTRAINT fk_comments_to_items FOREIGN KEY(item_id) REFERENCES items(id),
     CONSTRAINT fk_comments_to_users FOREIGN KEY(author_id) REFERENCES users(id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings(item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments(item_id);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings(booker_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings(item_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items(owner_id);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings(item_id, status, start_date);
+
+CREATE INDEX IF NOT EXISTS idx_requests_created ON requests(created DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_items_request ON items(request_id);
+
+-- Версия бронирований предмета: увеличивается при каждой новой брони, конкурентные брони одного предмета
+-- обнаруживают друг друга по несовпадению версии и повторяются. Используется только там, где нет ограничения
+-- bookings_no_overlap (shareit.bookings.version-check.enabled)
+ALTER TABLE items ADD COLUMN IF NOT EXISTS booking_version BIGINT NOT NULL DEFAULT 0;
+
+-- Исходящий журнал событий о бронях (outbox): строка пишется в транзакции изменения брони
+-- и удаляется ретранслятором после доставки подписчикам
+CREATE SEQUENCE IF NOT EXISTS booking_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS booking_events (
+    id BIGINT PRIMARY KEY,
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created TIMESTAMP NOT NULL
+);
+
+-- Сводка по предмету для списка вещей владельца (read-модель): последнее и следующее бронирование, число
+-- и последние комментарии. Пересчитывается после изменений броней и комментариев и плановым заданием
+CREATE TABLE IF NOT EXISTS item_summary (
+    item_id BIGINT PRIMARY KEY,
+    last_booking_id BIGINT,
+    last_booker_id BIGINT,
+    next_booking_id BIGINT,
+    next_booker_id BIGINT,
+    next_booking_start TIMESTAMP,
+    comment_count INT NOT NULL DEFAULT 0,
+    latest_comments VARCHAR,
+    updated TIMESTAMP NOT NULL,
+    CONSTRAINT fk_item_summary_to_items FOREIGN KEY(item_id) REFERENCES items(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_item_summary_next_start ON item_summary(next_booking_start);
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.batch;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class BatchImportTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void importUsers_insertsInJdbcBatchesAndReportsBadRows() {
+        int rows = 1200;
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (i == 10) {
+                json.append("{\"name\": \"\", \"email\": \"batch10@mail.ru\"}");
+            } else if (i == 700) {
+                json.append("{\"name\": \"duplicate\", \"email\": \"batch1@mail.ru\"}");
+            } else {
+                json.append("{\"name\": \"batch").append(i).append("\", \"email\": \"batch").append(i).append("@mail.ru\"}");
+            }
+        }
+        json.append(']');
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long before = userRepository.count();
+
+        BatchResultDto result = userService.importUsers(body(json.toString()));
+
+        assertThat(result.getTotal(), equalTo(rows));
+        assertThat(result.getCreated(), equalTo(rows - 2));
+        assertThat(result.isCompleted(), equalTo(true));
+        assertThat(result.getErrors().stream().map(BatchRowErrorDto::getIndex).collect(Collectors.toList()), equalTo(List.of(10, 700)));
+        assertThat(result.getErrors().get(0).getMessage(), startsWith("name:"));
+        assertThat(userRepository.count(), equalTo(before + rows - 2));
+        // Первая и третья порции уходят пакетами; вторая из-за повтора email сохраняется построчно
+        assertThat(statistics.getPrepareStatementCount(), lessThan((long) rows));
+    }
+
+    @Test
+    public void importItems_skipsRowsWithUnknownRequestAndStopsOnBrokenJson() {
+        UserDto owner = userService.createUser(new UserDto(null, "batchOwner", "batchOwner@mail.ru"));
+        long before = itemRepository.count();
+        String json = "[{\"name\": \"first\", \"description\": \"description\", \"available\": true}," +
+                "{\"name\": \"second\", \"description\": \"description\", \"available\": true, \"requestId\": 100500}," +
+                "{\"name\": \"third\", \"description\": \"description\", \"available\": \"maybe\"}," +
+                "{\"name\": \"fourth\", \"description\": \"description\", \"available\": false}," +
+                "{\"name\": \"fifth\", \"descr";
+
+        BatchResultDto result = itemService.importItems(owner.getId(), body(json));
+
+        assertThat(result.getTotal(), equalTo(5));
+        assertThat(result.getCreated(), equalTo(2));
+        assertThat(result.isCompleted(), equalTo(false));
+        assertThat(result.getErrors().stream().map(BatchRowErrorDto::getIndex).collect(Collectors.toList()), equalTo(List.of(1, 2, 4)));
+        List<String> names = itemService.getAllUsersItems(owner.getId(), 0, 10)
+                .stream()
+                .map(ItemDtoFull::getName)
+                .collect(Collectors.toList());
+        assertThat(names, equalTo(List.of("first", "fourth")));
+        assertThat(itemRepository.count(), equalTo(before + 2));
+    }
+
+    @Test
+    public void importItems_rejectsUnknownOwnerAndNonArrayBody() {
+        assertThrows(NotFoundException.class, () -> itemService.importItems(100500L, body("[]")));
+        assertThrows(ValidationException.class, () -> userService.importUsers(body("{\"name\": \"user\"}")));
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@SpringBootTest
+public class BookingConcurrencyTest {
+    private static final int REQUESTS = 300;
+    private static final int SLOTS = 10;
+    // Не больше числа попыток создания брони: каждая попытка проигрывает только успешно созданной соседней брони
+    private static final int DISJOINT_REQUESTS = 5;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<User> users = new ArrayList<>();
+    private Item item;
+
+    @AfterEach
+    public void cleanUp() {
+        bookingRepository.deleteAll(bookingRepository.findAll().stream()
+                .filter(booking -> booking.getItem().getId().equals(item.getId()))
+                .collect(Collectors.toList()));
+        itemRepository.delete(item);
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    public void createBooking_parallelRequestsNeverProduceOverlappingBookings() throws Exception {
+        User owner = userRepository.save(new User(null, "owner", "concurrency-owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "concurrency-booker@mail.ru"));
+        users.add(owner);
+        users.add(booker);
+        item = itemRepository.save(new Item(null, "item", "description", true, owner, null));
+
+        // Каждый слот пересекается с соседними, так что одновременно может существовать не больше половины из них
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            int slot = i % SLOTS;
+            BookingDto dto = new BookingDto(0L, base.plusHours(slot), base.plusHours(slot + 2), item.getId(), null, null);
+            results.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    bookingService.createBooking(dto, booker.getId());
+                    return true;
+                } catch (ConflictException e) {
+                    return false;
+                }
+            }));
+        }
+        startSignal.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        List<Booking> bookings = bookingRepository.findAll().stream()
+                .filter(booking -> booking.getItem().getId().equals(item.getId()))
+                .collect(Collectors.toList());
+        assertThat(bookings.size(), equalTo(created));
+        assertThat(created, greaterThan(0));
+        assertThat(created, lessThanOrEqualTo(SLOTS / 2));
+        for (Booking first : bookings) {
+            for (Booking second : bookings) {
+                if (first != second) {
+                    boolean overlaps = first.getStart().isBefore(second.getEnd()) && second.getStart().isBefore(first.getEnd());
+                    assertThat(overlaps, equalTo(false));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void createBooking_parallelDisjointRequestsAllSucceed() throws Exception {
+        User owner = userRepository.save(new User(null, "owner", "disjoint-owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "disjoint-booker@mail.ru"));
+        users.add(owner);
+        users.add(booker);
+        item = itemRepository.save(new Item(null, "item", "description", true, owner, null));
+
+        // Брони одного предмета на разное время не мешают друг другу и не получают 409
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        ExecutorService executor = Executors.newFixedThreadPool(DISJOINT_REQUESTS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < DISJOINT_REQUESTS; i++) {
+            BookingDto dto = new BookingDto(0L, base.plusHours(i * 2), base.plusHours(i * 2 + 1), item.getId(), null, null);
+            results.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    bookingService.createBooking(dto, booker.getId());
+                    return true;
+                } catch (ConflictException e) {
+                    return false;
+                }
+            }));
+        }
+        startSignal.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(created, equalTo(DISJOINT_REQUESTS));
+        assertThat(bookingRepository.findAll().stream()
+                .filter(booking -> booking.getItem().getId().equals(item.getId()))
+                .count(), equalTo((long) DISJOINT_REQUESTS));
+    }
+}
@@ -6,6 +6,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
 import ru.practicum.shareit.booking.controller.BookingController;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFull;
@@ -14,6 +15,7 @@ import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.util.Status;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.CursorPage;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -85,4 +87,15 @@ class BookingControllerTest {
 
         Mockito.verify(bookingService, times(1)).getUsersBookings("ALL", 0, 5, 1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllForBookerByCursor_shouldReturnNextCursorHeader() {
+        List<BookingDtoFull> content = List.of(BookingMapper.toBookingDtoFull(BookingMapper.toBooking(bookingDto2, item, user), item));
+        when(bookingService.getUsersBookingsByCursor("ALL", "", 1, 1L))
+                .thenReturn(new CursorPage<>(content, "next"));
+
+        ResponseEntity<Collection<BookingDtoFull>> response = bookingController.getUsersBookingsByCursor("ALL", "", 1, 1L);
+        assertThat(response.getBody()).hasSize(1);
+        assertThat(response.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER)).isEqualTo("next");
+    }
+}
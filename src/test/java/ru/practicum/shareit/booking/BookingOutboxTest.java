@@ -0,0 +1,170 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.outbox.BookingEvent;
+import ru.practicum.shareit.booking.outbox.BookingEventDto;
+import ru.practicum.shareit.booking.outbox.BookingEventRepository;
+import ru.practicum.shareit.booking.outbox.BookingEventSink;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.BookingOutboxRelay;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.exception.WrongAccessException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class BookingOutboxTest {
+    private static final int EVENTS = 2_000;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingOutboxRelay relay;
+    @Autowired
+    private BookingEventRepository bookingEventRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private RecordingSink sink;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        public RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    // Запоминает доставленные события; можно заставить упасть на нескольких следующих пачках
+    static class RecordingSink implements BookingEventSink {
+        private final List<BookingEventDto> received = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public void handle(List<BookingEventDto> events) {
+            if (failures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IllegalStateException("Подписчик недоступен");
+            }
+            received.addAll(events);
+        }
+    }
+
+    @BeforeEach
+    public void start() {
+        bookingEventRepository.deleteAll();
+        sink.received.clear();
+        sink.failures.set(0);
+        owner = userRepository.save(new User(null, "outboxOwner", "outbox-owner-" + System.nanoTime() + "@mail.ru"));
+        booker = userRepository.save(new User(null, "outboxBooker", "outbox-booker-" + System.nanoTime() + "@mail.ru"));
+        item = itemRepository.save(new Item(null, "tent", "outbox", true, owner, null));
+    }
+
+    @Test
+    public void createAndConfirmBooking_writeEventsInTheSameTransaction() {
+        BookingDtoFull booking = bookingService.createBooking(bookingDto(1), booker.getId());
+        bookingService.confirmBooking(booking.getId(), true, owner.getId());
+
+        List<BookingEvent> events = bookingEventRepository.findAll(Sort.by("id"));
+        assertThat(events.size(), equalTo(2));
+        assertThat(events.get(0).getType(), equalTo(BookingEventType.CREATED));
+        assertThat(events.get(0).getOwnerId(), equalTo(owner.getId()));
+        assertThat(events.get(1).getType(), equalTo(BookingEventType.STATUS_CHANGED));
+        assertThat(events.get(1).getStatus(), equalTo(Status.APPROVED));
+
+        // Откат брони откатывает и событие
+        item.setIsAvailable(false);
+        itemRepository.save(item);
+        assertThrows(WrongAccessException.class, () -> bookingService.createBooking(bookingDto(5), booker.getId()));
+        assertThat(bookingEventRepository.count(), equalTo(2L));
+    }
+
+    @Test
+    public void drain_deliversAllEventsInOrderAndMeasuresThroughputAndLag() {
+        bookingEventRepository.saveAll(events(EVENTS));
+        Timer lag = meterRegistry.find("shareit.outbox.lag").timer();
+        long lagBefore = lag.count();
+        double publishedBefore = meterRegistry.find("shareit.outbox.events.published").counter().count();
+
+        int delivered = relay.drain();
+
+        assertThat(delivered, equalTo(EVENTS));
+        assertThat(sink.received.size(), equalTo(EVENTS));
+        List<Long> ids = sink.received.stream().map(BookingEventDto::getId).collect(Collectors.toList());
+        assertThat(ids, equalTo(ids.stream().sorted().collect(Collectors.toList())));
+        assertThat(bookingEventRepository.count(), equalTo(0L));
+        assertThat(meterRegistry.find("shareit.outbox.events.published").counter().count() - publishedBefore,
+                equalTo((double) EVENTS));
+        assertThat(lag.count() - lagBefore, equalTo((long) EVENTS));
+        assertThat(lag.max(TimeUnit.NANOSECONDS), greaterThan(0.0));
+    }
+
+    @Test
+    public void drain_redeliversBatchAfterSinkFailure() {
+        BookingDtoFull booking = bookingService.createBooking(bookingDto(1), booker.getId());
+        bookingService.confirmBooking(booking.getId(), false, owner.getId());
+        double failuresBefore = meterRegistry.find("shareit.outbox.relay.failures").counter().count();
+        sink.failures.set(1);
+
+        assertThrows(IllegalStateException.class, () -> relay.drain());
+        assertThat(bookingEventRepository.count(), equalTo(2L));
+        assertThat(meterRegistry.find("shareit.outbox.relay.failures").counter().count() - failuresBefore, equalTo(1.0));
+
+        assertThat(relay.drain(), equalTo(2));
+        assertThat(sink.received.stream().map(BookingEventDto::getStatus).collect(Collectors.toList()),
+                contains(Status.WAITING, Status.REJECTED));
+        assertThat(bookingEventRepository.count(), equalTo(0L));
+        assertThat(relay.drain(), equalTo(0));
+    }
+
+    private BookingDto bookingDto(int daysFromNow) {
+        BookingDto dto = new BookingDto();
+        dto.setItemId(item.getId());
+        dto.setStart(LocalDateTime.now().plusDays(daysFromNow));
+        dto.setEnd(LocalDateTime.now().plusDays(daysFromNow + 1));
+        return dto;
+    }
+
+    private List<BookingEvent> events(int count) {
+        List<BookingEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new BookingEvent(null, (long) i, item.getId(), owner.getId(), booker.getId(), BookingEventType.CREATED,
+                    Status.WAITING, LocalDateTime.now()));
+        }
+        return events;
+    }
+}
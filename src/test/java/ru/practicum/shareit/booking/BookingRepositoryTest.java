@@ -1,11 +1,16 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.QBooking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.util.Status;
 import ru.practicum.shareit.item.model.Item;
@@ -15,9 +20,13 @@ import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.in;
+import static org.hamcrest.Matchers.not;
 
 @DataJpaTest
 class BookingRepositoryTest {
@@ -28,6 +37,8 @@ class BookingRepositoryTest {
     private ItemRepository itemRepository;
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     private final User user = new User();
     private final Item item2 = new Item();
@@ -87,4 +98,48 @@ class BookingRepositoryTest {
 
         assertThat(3, equalTo(bookings.size()));
     }
+
+    @Test
+    void findBookingDtos_shouldApplyConditionAndLimitInQuery() {
+        QBooking booking = QBooking.booking;
+        List<BookingDtoFull> firstPage = bookingRepository.findBookingDtos(booking.booker.id.eq(user.getId()), 0, 2);
+        List<BookingDtoFull> secondPage = bookingRepository.findBookingDtos(booking.booker.id.eq(user.getId()), 2, 2);
+        List<BookingDtoFull> current = bookingRepository.findBookingDtos(booking.item.user.id.eq(user.getId())
+                .and(booking.end.after(LocalDateTime.now())), 0, 10);
+
+        assertThat(2, equalTo(firstPage.size()));
+        assertThat(1, equalTo(secondPage.size()));
+        assertThat(secondPage.get(0).getId(), not(in(firstPage.stream().map(BookingDtoFull::getId).collect(Collectors.toList()))));
+        assertThat(1, equalTo(current.size()));
+        assertThat(item2.getId(), equalTo(current.get(0).getItem().getId()));
+    }
+
+    @Test
+    void findWithItemAndBookerById_shouldFetchItemAndBookerInSameQuery() {
+        entityManager.flush();
+        entityManager.clear();
+
+        long id = bookingRepository.findBookingDtos(QBooking.booking.booker.id.eq(user.getId()), 0, 1).get(0).getId();
+        Optional<Booking> single = bookingRepository.findWithItemAndBookerById(id);
+
+        assertThat(Hibernate.isInitialized(single.get().getItem()), equalTo(true));
+        assertThat(Hibernate.isInitialized(single.get().getBooker()), equalTo(true));
+    }
+
+    @Test
+    void findBookingDtos_shouldProjectSameRowsAsEntities() {
+        entityManager.flush();
+        entityManager.clear();
+        List<Booking> entities = entityManager.getEntityManager()
+                .createQuery("select b from Booking as b join fetch b.item as i join fetch b.booker " +
+                        "where i.user.id = :userId order by b.start desc, b.id desc", Booking.class)
+                .setParameter("userId", user.getId())
+                .getResultList();
+        List<BookingDtoFull> dtos = bookingRepository.findBookingDtos(QBooking.booking.item.user.id.eq(user.getId()), 0, 10);
+
+        assertThat(dtos.size(), equalTo(entities.size()));
+        for (int i = 0; i < dtos.size(); i++) {
+            assertThat(dtos.get(i), equalTo(BookingMapper.toBookingDtoFull(entities.get(i), entities.get(i).getItem())));
+        }
+    }
 }
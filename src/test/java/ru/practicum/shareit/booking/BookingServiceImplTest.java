@@ -1,27 +1,39 @@
 package ru.practicum.shareit.booking;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.outbox.BookingOutbox;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.WrongStateException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
+import ru.practicum.shareit.item.summary.ItemSummaryService;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
@@ -35,7 +47,6 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class BookingServiceImplTest {
-    @InjectMocks
     BookingServiceImpl bookingService;
 
     @Mock
@@ -47,6 +58,32 @@ public class BookingServiceImplTest {
     @Mock
     ItemRepository itemRepository;
 
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    BookingTimeline bookingTimeline;
+
+    @Mock
+    BookingOutbox bookingOutbox;
+
+    @Mock
+    ItemOwnerIndex itemOwnerIndex;
+
+    @Mock
+    ItemSummaryService itemSummaryService;
+
+    @BeforeEach
+    public void start() {
+        // Модульные тесты повторяют конфигурацию H2: без ограничения bookings_no_overlap проверяется версия предмета
+        bookingService = createService(true);
+    }
+
+    private BookingServiceImpl createService(boolean versionCheck) {
+        return new BookingServiceImpl(bookingRepository, userRepository, itemRepository, transactionManager,
+                bookingTimeline, bookingOutbox, itemOwnerIndex, itemSummaryService, versionCheck);
+    }
+
     @Test
     public void createBooking() {
         User owner = new User(1L, "Anastasiya", "ana@mail.ru");
@@ -55,11 +92,10 @@ public class BookingServiceImplTest {
         BookingDto dto = new BookingDto(1L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), 1L, booker.getId(), Status.WAITING);
         Booking booking = new Booking(1L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), item, booker, Status.WAITING);
 
-        Mockito.when(userRepository.existsById(Mockito.anyLong())).thenReturn(true);
         Mockito.when(userRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booker));
-        Mockito.when(itemRepository.existsById(Mockito.anyLong())).thenReturn(true);
         Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
         Mockito.when(bookingRepository.save(Mockito.any())).thenReturn(booking);
+        Mockito.when(itemRepository.incrementBookingVersion(1L, 0L)).thenReturn(1);
 
         BookingDtoFull bookingSaved = bookingService.createBooking(dto, 2L);
 
@@ -69,26 +105,132 @@ public class BookingServiceImplTest {
         assertThat(bookingSaved.getItem(), equalTo(ItemMapper.toItemDtoForBooking(item)));
         assertThat(bookingSaved.getBooker(), equalTo(UserMapper.toUserDtoForBooking(booker)));
 
-        verify(userRepository, atLeast(1)).existsById(2L);
-        verify(userRepository, atLeast(1)).findById(2L);
-        verify(itemRepository, times(1)).existsById(1L);
-        verify(itemRepository, times(4)).findById(1L);
+        verify(userRepository, times(1)).findById(2L);
+        verify(itemRepository, times(1)).findById(1L);
+        verify(userRepository, never()).existsById(Mockito.anyLong());
+        verify(itemRepository, never()).existsById(Mockito.anyLong());
         verify(bookingRepository).save(any()); // Проверяем, что метод save был вызван хотя бы один раз
     }
 
+    @Test
+    public void createBooking_overlappingBookingIsConflict() {
+        User owner = new User(1L, "Anastasiya", "ana@mail.ru");
+        User booker = new User(2L, "notAnastasiya", "notAna@mail.ru");
+        Item item = new Item(1L, "item", "description", true, owner, null);
+        BookingDto dto = new BookingDto(0L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), 1L, null, null);
+
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        Mockito.when(bookingRepository.existsByItemIdAndStatusInAndStartBeforeAndEndAfter(Mockito.eq(1L), Mockito.any(),
+                Mockito.eq(dto.getEnd()), Mockito.eq(dto.getStart()))).thenReturn(true);
+
+        assertThrows(ConflictException.class, () -> bookingService.createBooking(dto, 2L));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    public void createBooking_overlapFoundInTimelineIsConflictWithoutQuery() {
+        User owner = new User(1L, "Anastasiya", "ana@mail.ru");
+        User booker = new User(2L, "notAnastasiya", "notAna@mail.ru");
+        Item item = new Item(1L, "item", "description", true, owner, null);
+        BookingDto dto = new BookingDto(0L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), 1L, null, null);
+
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        Mockito.when(bookingTimeline.isReady()).thenReturn(true);
+        Mockito.when(bookingTimeline.findOverlapping(1L, dto.getStart(), dto.getEnd())).thenReturn(List.of(
+                new BookingInterval(7L, 1L, 3L, dto.getStart().minusMinutes(10), dto.getStart().plusMinutes(5), Status.APPROVED)));
+
+        assertThrows(ConflictException.class, () -> bookingService.createBooking(dto, 2L));
+        verify(bookingRepository, never()).existsByItemIdAndStatusInAndStartBeforeAndEndAfter(Mockito.anyLong(), Mockito.any(),
+                Mockito.any(), Mockito.any());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    public void createBooking_retriesWhenItemWasBookedConcurrently() {
+        User owner = new User(1L, "Anastasiya", "ana@mail.ru");
+        User booker = new User(2L, "notAnastasiya", "notAna@mail.ru");
+        Item item = new Item(1L, "item", "description", true, owner, null);
+        BookingDto dto = new BookingDto(0L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), 1L, null, null);
+        Booking booking = new Booking(5L, dto.getStart(), dto.getEnd(), item, booker, Status.WAITING);
+
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        Mockito.when(itemRepository.getBookingVersion(1L)).thenReturn(0L, 1L);
+        Mockito.when(itemRepository.incrementBookingVersion(1L, 0L)).thenReturn(0);
+        Mockito.when(itemRepository.incrementBookingVersion(1L, 1L)).thenReturn(1);
+        Mockito.when(bookingRepository.save(Mockito.any())).thenReturn(booking);
+
+        BookingDtoFull bookingSaved = bookingService.createBooking(dto, 2L);
+
+        assertThat(bookingSaved.getId(), equalTo(5L));
+        verify(bookingRepository, times(2)).save(any());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    public void createBooking_withoutVersionCheck_doesNotTouchItemVersion() {
+        User owner = new User(1L, "Anastasiya", "ana@mail.ru");
+        User booker = new User(2L, "notAnastasiya", "notAna@mail.ru");
+        Item item = new Item(1L, "item", "description", true, owner, null);
+        BookingDto dto = new BookingDto(0L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), 1L, null, null);
+        Booking booking = new Booking(5L, dto.getStart(), dto.getEnd(), item, booker, Status.WAITING);
+
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        Mockito.when(bookingRepository.save(Mockito.any())).thenReturn(booking);
+
+        BookingDtoFull bookingSaved = createService(false).createBooking(dto, 2L);
+
+        assertThat(bookingSaved.getId(), equalTo(5L));
+        verify(itemRepository, never()).getBookingVersion(Mockito.anyLong());
+        verify(itemRepository, never()).incrementBookingVersion(Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    public void createBooking_retriesOverlapViolationAndReportsConflict() {
+        User owner = new User(1L, "Anastasiya", "ana@mail.ru");
+        User booker = new User(2L, "notAnastasiya", "notAna@mail.ru");
+        Item item = new Item(1L, "item", "description", true, owner, null);
+        BookingDto dto = new BookingDto(0L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), 1L, null, null);
+
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        Mockito.when(bookingRepository.save(Mockito.any())).thenThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThrows(ConflictException.class, () -> bookingService.createBooking(dto, 2L));
+        verify(bookingRepository, times(5)).save(any());
+    }
+
+    @Test
+    public void createBooking_otherIntegrityViolationIsNotRetried() {
+        User owner = new User(1L, "Anastasiya", "ana@mail.ru");
+        User booker = new User(2L, "notAnastasiya", "notAna@mail.ru");
+        Item item = new Item(1L, "item", "description", true, owner, null);
+        BookingDto dto = new BookingDto(0L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), 1L, null, null);
+
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        Mockito.when(bookingRepository.save(Mockito.any())).thenThrow(new DataIntegrityViolationException("fk",
+                new SQLException("violates foreign key constraint", "23503")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> bookingService.createBooking(dto, 2L));
+        verify(bookingRepository, times(1)).save(any());
+    }
+
     @Test
     public void getBooking() {
         User user = new User(1L,"Anastasiya","ana@mail.ru");
         Item item = new Item(1L, "item", "description", true, user, new ItemRequest());
         Booking booking = new Booking(1L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), item, user, Status.WAITING);
 
-        Mockito.when(bookingRepository.existsById(Mockito.anyLong())).thenReturn(true);
-        Mockito.when(bookingRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.findWithItemAndBookerById(Mockito.anyLong())).thenReturn(Optional.of(booking));
 
         assertThat(bookingService.getBooking(1L, 1L),equalTo(BookingMapper.toBookingDtoFull(booking, item)));
 
-        Mockito.verify(bookingRepository, times(1)).existsById(1L);
-        Mockito.verify(bookingRepository, times(1)).findById(1L);
+        Mockito.verify(bookingRepository, times(1)).findWithItemAndBookerById(1L);
     }
 
     @Test
@@ -98,13 +240,11 @@ public class BookingServiceImplTest {
         Item item = new Item(1L, "test", "test", true, owner, new ItemRequest());
         Booking booking = new Booking(1L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), item, renter, Status.WAITING);
 
-        Mockito.when(bookingRepository.existsById(Mockito.anyLong())).thenReturn(true);
-        Mockito.when(bookingRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.findWithItemAndBookerById(Mockito.anyLong())).thenReturn(Optional.of(booking));
 
         assertThrows(NotFoundException.class, () -> bookingService.getBooking(1L, 3L));
 
-        Mockito.verify(bookingRepository, times(1)).existsById(1L);
-        Mockito.verify(bookingRepository, times(1)).findById(1L);
+        Mockito.verify(bookingRepository, times(1)).findWithItemAndBookerById(1L);
     }
 
     @Test
@@ -115,20 +255,60 @@ public class BookingServiceImplTest {
         Booking bookingApproved = new Booking(1L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), item, user, Status.APPROVED);
 
         Mockito.when(userRepository.existsById(Mockito.anyLong())).thenReturn(true);
-        Mockito.when(bookingRepository.existsById(Mockito.anyLong())).thenReturn(true);
         Mockito.when(bookingRepository.save(Mockito.any())).thenReturn(bookingApproved);
-        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.findWithItemAndBookerById(Mockito.anyLong())).thenReturn(Optional.of(booking));
+        Mockito.when(itemOwnerIndex.isOwner(1L, 1L)).thenReturn(true);
 
         BookingDtoFull approvedBookingDto = bookingService.confirmBooking(1L, true, 1L);
 
         assertThat(approvedBookingDto.getStatus(),equalTo(Status.APPROVED));
 
         Mockito.verify(userRepository, times(1)).existsById(1L);
-        Mockito.verify(bookingRepository, times(1)).existsById(1L);
         Mockito.verify(bookingRepository, times(1)).save(booking);
-        Mockito.verify(itemRepository, times(1)).findById(1L);
-        Mockito.verify(bookingRepository, times(1)).findById(1L);
+        Mockito.verify(bookingRepository, times(1)).findWithItemAndBookerById(1L);
+        Mockito.verify(itemRepository, never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    public void confirmBookings_loadsAllBookingsOnceAndReportsEachDecision() {
+        User owner = new User(1L, "Anastasiya", "ana@mail.ru");
+        User stranger = new User(3L, "stranger", "stranger@mail.ru");
+        User booker = new User(2L, "notAnastasiya", "notAna@mail.ru");
+        Item item = new Item(1L, "item", "description", true, owner, null);
+        Item strangerItem = new Item(2L, "item", "description", true, stranger, null);
+        LocalDateTime start = LocalDateTime.of(2023, 11, 6, 23, 30);
+        Booking waiting = new Booking(1L, start, start.plusHours(1), item, booker, Status.WAITING);
+        Booking toReject = new Booking(2L, start.plusHours(2), start.plusHours(3), item, booker, Status.WAITING);
+        Booking approved = new Booking(3L, start.plusHours(4), start.plusHours(5), item, booker, Status.APPROVED);
+        Booking foreign = new Booking(4L, start, start.plusHours(1), strangerItem, booker, Status.WAITING);
+
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(bookingRepository.findAllWithItemByIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(waiting, toReject, approved, foreign));
+        Mockito.when(itemOwnerIndex.isOwner(1L, 1L)).thenReturn(true);
+
+        List<BookingDecisionResultDto> results = bookingService.confirmBookings(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false),
+                new BookingDecisionDto(3L, true),
+                new BookingDecisionDto(4L, true),
+                new BookingDecisionDto(5L, true),
+                new BookingDecisionDto(1L, false),
+                new BookingDecisionDto(null, true)), 1L);
+
+        assertThat(results.size(), equalTo(7));
+        assertThat(results.get(0), equalTo(new BookingDecisionResultDto(1L, Status.APPROVED, null)));
+        assertThat(results.get(1), equalTo(new BookingDecisionResultDto(2L, Status.REJECTED, null)));
+        assertThat(results.get(2), equalTo(new BookingDecisionResultDto(3L, Status.APPROVED, "Букинг уже подтвержден")));
+        assertThat(results.get(3).getError(), equalTo("Букинг с id 4 не найден"));
+        assertThat(results.get(4).getError(), equalTo("Букинг с id 5 не найден"));
+        assertThat(results.get(5).getError(), equalTo("Букинг с id 1 указан повторно"));
+        assertThat(results.get(6).getError(), notNullValue());
+        assertThat(foreign.getStatus(), equalTo(Status.WAITING));
+        verify(bookingRepository, times(1)).findAllWithItemByIdIn(Mockito.anyCollection());
+        verify(bookingRepository).saveAll(List.of(waiting, toReject));
+        verify(bookingRepository, never()).findWithItemAndBookerById(Mockito.anyLong());
+        verify(bookingTimeline, times(2)).update(any());
     }
 
     @Test
@@ -136,15 +316,15 @@ public class BookingServiceImplTest {
         User user = new User(1L,"Anastasiya","ana@mail.ru");
         Item item = new Item(1L, "item", "description", true, user, new ItemRequest());
         Booking booking = new Booking(1L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), item, user, Status.WAITING);
-        List<Booking> bookingList = List.of(booking);
 
         Mockito.when(userRepository.existsById(Mockito.anyLong())).thenReturn(true);
-        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findAllByBookerId(Mockito.anyLong(), Mockito.any())).thenReturn(bookingList);
+        Mockito.when(bookingRepository.findBookingDtos(Mockito.any(), Mockito.anyLong(), Mockito.anyInt()))
+                .thenReturn(List.of(BookingMapper.toBookingDtoFull(booking, item)));
 
         Collection<BookingDtoFull> bookings = bookingService.getUsersBookings("ALL", 0, 2, 1L);
 
         assertThat(bookings.size(),equalTo(1));
+        Mockito.verify(itemRepository, never()).findById(Mockito.anyLong());
     }
 
     @Test
@@ -153,15 +333,22 @@ public class BookingServiceImplTest {
         User booker = new User(2L,"notAnastasiya","notAna@mail.ru");
         Item item = new Item(1L, "item", "description", true, owner, new ItemRequest());
         Booking booking = new Booking(1L, LocalDateTime.of(2023, 11, 6, 23, 30), LocalDateTime.of(2023, 11, 6, 23, 50), item, booker, Status.WAITING);
-        List<Item> itemList = List.of(item);
-        List<Booking> bookingList = List.of(booking);
 
         Mockito.when(userRepository.existsById(Mockito.anyLong())).thenReturn(true);
-        Mockito.when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item));
-        Mockito.when(itemRepository.findByUserId(Mockito.anyLong())).thenReturn(itemList);
-        Mockito.when(bookingRepository.findByOwner(Mockito.anyLong(), Mockito.any())).thenReturn(bookingList);
+        Mockito.when(itemOwnerIndex.hasItems(1L)).thenReturn(true);
+        Mockito.when(bookingRepository.findBookingDtos(Mockito.any(), Mockito.anyLong(), Mockito.anyInt()))
+                .thenReturn(List.of(BookingMapper.toBookingDtoFull(booking, item)));
 
         Collection<BookingDtoFull> bookings = bookingService.getUsersItemsBookings("ALL", 0, 2, 1L);
         assertThat(bookings.size(),equalTo(1));
     }
+
+    @Test
+    public void getUsersBookingsWithUnknownState_shouldThrowException() {
+        Mockito.when(userRepository.existsById(Mockito.anyLong())).thenReturn(true);
+
+        assertThrows(WrongStateException.class, () -> bookingService.getUsersBookings("UNKNOWN", 0, 2, 1L));
+
+        Mockito.verify(bookingRepository, never()).findBookingDtos(Mockito.any(), Mockito.anyLong(), Mockito.anyInt());
+    }
 }
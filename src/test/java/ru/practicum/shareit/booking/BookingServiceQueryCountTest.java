@@ -0,0 +1,105 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.outbox.BookingEvent;
+import ru.practicum.shareit.booking.outbox.BookingEventRepository;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.BookingOutbox;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
+import ru.practicum.shareit.item.summary.ItemSummaryService;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BookingServiceQueryCountTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingEventRepository bookingEventRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private BookingServiceImpl bookingService;
+    private ItemOwnerIndex itemOwnerIndex;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void start() {
+        itemOwnerIndex = new ItemOwnerIndex(itemRepository, true);
+        bookingService = new BookingServiceImpl(bookingRepository, userRepository, itemRepository, transactionManager,
+                new BookingTimeline(bookingRepository, false), new BookingOutbox(bookingEventRepository), itemOwnerIndex,
+                mock(ItemSummaryService.class), true);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void confirmBookings_statementCountDoesNotDependOnBookingCount() {
+        User owner = userRepository.save(new User(null, "batchOwner", "batchOwner@mail.ru"));
+        User booker = userRepository.save(new User(null, "batchBooker", "batchBooker@mail.ru"));
+        Item item = itemRepository.save(new Item(null, "item", "description", true, owner, null));
+        List<BookingDecisionDto> decisions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Booking booking = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(i), LocalDateTime.now().plusDays(i).plusHours(1),
+                    item, booker, Status.WAITING));
+            decisions.add(new BookingDecisionDto(booking.getId(), i % 2 == 0));
+        }
+        // Первые события выделяют диапазон идентификаторов outbox (оптимизатор pooled на новой последовательности
+        // обращается к ней дважды), события ниже берут id из него без запросов
+        for (int i = 0; i < 2; i++) {
+            bookingEventRepository.save(new BookingEvent(null, 0L, item.getId(), owner.getId(), booker.getId(),
+                    BookingEventType.CREATED, Status.WAITING, LocalDateTime.now()));
+        }
+        entityManager.flush();
+        itemOwnerIndex.rebuild();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        List<BookingDecisionResultDto> results = bookingService.confirmBookings(decisions, owner.getId());
+        entityManager.flush();
+
+        assertThat(results.get(0).getStatus(), equalTo(Status.APPROVED));
+        assertThat(results.get(19).getStatus(), equalTo(Status.REJECTED));
+        // Проверка пользователя, выборка броней с предметами, один пакет UPDATE и один пакет INSERT в outbox
+        assertThat(statistics.getPrepareStatementCount(), equalTo(4L));
+        assertThat(statistics.getEntityUpdateCount(), equalTo(20L));
+        assertThat(statistics.getEntityInsertCount(), equalTo(20L));
+        entityManager.clear();
+        assertThat(bookingRepository.findById(decisions.get(1).getBookingId()).get().getStatus(), equalTo(Status.REJECTED));
+    }
+}
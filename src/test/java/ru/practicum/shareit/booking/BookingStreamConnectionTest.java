@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Открытые SSE-подписки не держат соединения с БД: подписок больше, чем соединений в пуле,
+// а обычный запрос после них получает соединение без ожидания connection-timeout
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:streams",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.minimum-idle=1",
+        "spring.datasource.hikari.connection-timeout=250",
+        "shareit.bookings.stream.timeout=10000"
+})
+@AutoConfigureMockMvc
+public class BookingStreamConnectionTest {
+    private static final int STREAMS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void openStreams_doNotHoldPoolConnections() throws Exception {
+        UserDto user = userService.createUser(new UserDto(null, "subscriber", "stream-subscriber@mail.ru"));
+
+        for (int i = 0; i < STREAMS; i++) {
+            mockMvc.perform(get("/bookings/stream").header("X-Sharer-User-Id", user.getId()))
+                    .andExpect(request().asyncStarted());
+        }
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings").header("X-Sharer-User-Id", user.getId()))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.outbox.BookingEventDto;
+import ru.practicum.shareit.booking.outbox.BookingEventRepository;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.BookingOutboxRelay;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.stream.BookingStreamHub;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookingStreamHubTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingOutboxRelay relay;
+    @Autowired
+    private BookingEventRepository bookingEventRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    public void start() {
+        bookingEventRepository.deleteAll();
+        owner = userRepository.save(new User(null, "streamOwner", "stream-owner-" + System.nanoTime() + "@mail.ru"));
+        booker = userRepository.save(new User(null, "streamBooker", "stream-booker-" + System.nanoTime() + "@mail.ru"));
+        item = itemRepository.save(new Item(null, "kayak", "stream", true, owner, null));
+    }
+
+    @Test
+    public void stream_pushesCreatedAndConfirmedBookingsToOwnerAndBooker() throws Exception {
+        MvcResult ownerStream = mvc.perform(get("/bookings/stream").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult bookerStream = mvc.perform(get("/bookings/stream").header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        BookingDtoFull booking = bookingService.createBooking(bookingDto(), booker.getId());
+        bookingService.confirmBooking(booking.getId(), true, owner.getId());
+        relay.drain();
+
+        for (MvcResult result : List.of(ownerStream, bookerStream)) {
+            String content = awaitContent(result, "APPROVED");
+            assertThat(content, containsString("event:booking"));
+            assertThat(content, containsString("\"id\":" + booking.getId()));
+            assertThat(content.indexOf("WAITING") < content.indexOf("APPROVED"), equalTo(true));
+        }
+    }
+
+    @Test
+    public void stream_unknownUser() throws Exception {
+        mvc.perform(get("/bookings/stream").header("X-Sharer-User-Id", 999_999))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void handle_disconnectsSubscriberThatOverflowsItsQueue() {
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findBookingDtos(any(), anyLong(), anyInt()))
+                .thenReturn(List.of(new BookingDtoFull(1L, null, null, null, null, Status.WAITING)));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Отправитель, который ничего не отправляет: очередь подписчика только растет
+        List<Runnable> pending = new ArrayList<>();
+        BookingStreamHub stalled = new BookingStreamHub(bookingRepository, meterRegistry, pending::add, 2, 10, 60_000);
+
+        stalled.subscribe(owner.getId());
+        stalled.subscribe(booker.getId());
+        assertThat(stalled.getSubscriberCount(), equalTo(2));
+
+        List<BookingEventDto> events = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            events.add(new BookingEventDto(i, 1L, item.getId(), owner.getId(), null, BookingEventType.CREATED,
+                    Status.WAITING, LocalDateTime.now()));
+        }
+        stalled.handle(events);
+
+        assertThat(stalled.getSubscriberCount(), equalTo(1));
+        assertThat(meterRegistry.find("shareit.bookings.stream.dropped").counter().count(), equalTo(1.0));
+        assertThat(pending.size(), equalTo(1));
+    }
+
+    @Test
+    public void subscribe_rejectsAboveLimit() {
+        BookingStreamHub limited = new BookingStreamHub(mock(BookingRepository.class), new SimpleMeterRegistry(),
+                Runnable::run, 2, 1, 60_000);
+
+        limited.subscribe(owner.getId());
+        assertThrows(ServiceUnavailableException.class, () -> limited.subscribe(booker.getId()));
+        assertThat(limited.getSubscriberCount(), equalTo(1));
+    }
+
+    private String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    private BookingDto bookingDto() {
+        BookingDto dto = new BookingDto();
+        dto.setItemId(item.getId());
+        dto.setStart(LocalDateTime.now().plusDays(1));
+        dto.setEnd(LocalDateTime.now().plusDays(2));
+        return dto;
+    }
+}
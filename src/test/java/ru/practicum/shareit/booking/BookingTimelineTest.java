@@ -0,0 +1,125 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.verify;
+
+public class BookingTimelineTest {
+    private final LocalDateTime now = LocalDateTime.of(2023, 11, 6, 12, 0);
+    private final User owner = new User(1L, "owner", "owner@mail.ru");
+    private final User booker = new User(2L, "booker", "booker@mail.ru");
+    private final Item item = new Item(1L, "item", "description", true, owner, null);
+
+    private BookingRepository bookingRepository;
+    private BookingTimeline timeline;
+
+    @BeforeEach
+    public void start() {
+        bookingRepository = Mockito.mock(BookingRepository.class);
+        Mockito.when(bookingRepository.findIntervalsByStatusNot(Status.REJECTED)).thenReturn(List.of(
+                new BookingInterval(1L, 1L, 2L, now.minusDays(3), now.minusDays(2), Status.APPROVED),
+                new BookingInterval(2L, 1L, 2L, now.minusHours(1), now.plusHours(1), Status.APPROVED),
+                new BookingInterval(3L, 1L, 2L, now.plusDays(1), now.plusDays(2), Status.WAITING),
+                new BookingInterval(4L, 1L, 2L, now.plusDays(3), now.plusDays(4), Status.WAITING)));
+        timeline = new BookingTimeline(bookingRepository, true);
+        timeline.rebuild();
+    }
+
+    @AfterEach
+    public void clean() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void findLastNextAndCurrent() {
+        assertThat(timeline.isReady(), equalTo(true));
+        assertThat(timeline.findLast(1L, now).get().getId(), equalTo(2L));
+        assertThat(timeline.findCurrent(1L, now).get().getId(), equalTo(2L));
+        assertThat(timeline.findNext(1L, now).get().getId(), equalTo(3L));
+
+        assertThat(timeline.findLast(1L, now.plusHours(2)).get().getId(), equalTo(2L));
+        assertThat(timeline.findCurrent(1L, now.plusHours(2)), equalTo(Optional.empty()));
+        assertThat(timeline.findNext(1L, now.plusDays(5)), equalTo(Optional.empty()));
+        assertThat(timeline.findLast(2L, now), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void findOverlapping() {
+        List<Long> ids = timeline.findOverlapping(1L, now.minusDays(2), now.plusDays(1).plusHours(1))
+                .stream()
+                .map(BookingInterval::getId)
+                .collect(Collectors.toList());
+        assertThat(ids, equalTo(List.of(2L, 3L)));
+
+        assertThat(timeline.findOverlapping(1L, now.minusDays(2).minusHours(1), now.minusHours(1)).get(0).getId(), equalTo(1L));
+        assertThat(timeline.findOverlapping(1L, now.plusHours(1), now.plusDays(1)), equalTo(List.of()));
+        assertThat(timeline.findOverlapping(1L, now, now), equalTo(List.of()));
+    }
+
+    @Test
+    public void rejectedBookingLeavesTimeline() {
+        timeline.update(new Booking(3L, now.plusDays(1), now.plusDays(2), item, booker, Status.REJECTED));
+
+        assertThat(timeline.findNext(1L, now).get().getId(), equalTo(4L));
+    }
+
+    @Test
+    public void newBookingAppearsOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        timeline.update(new Booking(5L, now.plusMinutes(90), now.plusMinutes(120), item, booker, Status.WAITING));
+
+        assertThat(timeline.findNext(1L, now).get().getId(), equalTo(3L));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(timeline.findNext(1L, now).get().getId(), equalTo(5L));
+    }
+
+    @Test
+    public void updateDuringRebuildIsNotLost() {
+        BookingRepository repository = Mockito.mock(BookingRepository.class);
+        BookingTimeline rebuilt = new BookingTimeline(repository, true);
+        // Бронь подтверждают и отклоняют, пока перестроение читает уже устаревшие данные
+        Mockito.when(repository.findIntervalsByStatusNot(Status.REJECTED)).thenAnswer(invocation -> {
+            rebuilt.update(new Booking(5L, now.plusHours(2), now.plusHours(3), item, booker, Status.WAITING));
+            rebuilt.update(new Booking(3L, now.plusDays(1), now.plusDays(2), item, booker, Status.REJECTED));
+            return List.of(new BookingInterval(3L, 1L, 2L, now.plusDays(1), now.plusDays(2), Status.WAITING));
+        });
+
+        rebuilt.rebuild();
+
+        assertThat(rebuilt.findNext(1L, now).get().getId(), equalTo(5L));
+        assertThat(rebuilt.findNext(1L, now.plusHours(4)), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void disabledTimelineIsNeverReady() {
+        BookingTimeline disabled = new BookingTimeline(bookingRepository, false);
+        disabled.rebuild();
+
+        assertThat(disabled.isReady(), equalTo(false));
+        verify(bookingRepository, Mockito.times(1)).findIntervalsByStatusNot(Status.REJECTED);
+    }
+}
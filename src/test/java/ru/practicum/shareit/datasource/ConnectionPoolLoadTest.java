@@ -0,0 +1,151 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Пул из двух соединений под нагрузкой 8 потоков: запросы ждут в очереди и выполняются, пул не растёт,
+// метрики пула отражают ожидание; при исчерпании пула запрос получает ошибку через connection-timeout
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pool",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.minimum-idle=2",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+public class ConnectionPoolLoadTest {
+    private static final int THREADS = 8;
+    private static final int CALLS_PER_THREAD = 20;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void poolQueuesRequestsUnderContentionAndExportsMetrics() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", "shareit").timer();
+        assertThat(acquire, notNullValue());
+        long acquiredBefore = acquire.count();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicInteger maxPending = new AtomicInteger();
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                maxActive.accumulateAndGet(pool.getHikariPoolMXBean().getActiveConnections(), Math::max);
+                maxPending.accumulateAndGet(pool.getHikariPoolMXBean().getThreadsAwaitingConnection(), Math::max);
+                sleep(1);
+            }
+        });
+        sampler.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int done = 0;
+                for (int j = 0; j < CALLS_PER_THREAD; j++) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+                        sleep(2);
+                    });
+                    done++;
+                }
+                return done;
+            }));
+        }
+        start.countDown();
+        int done = 0;
+        for (Future<Integer> future : futures) {
+            done += future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        running.set(false);
+        sampler.join();
+
+        assertThat(done, equalTo(THREADS * CALLS_PER_THREAD));
+        assertThat(maxActive.get(), lessThanOrEqualTo(2));
+        assertThat(maxPending.get(), greaterThan(0));
+        assertThat(acquire.count() - acquiredBefore, greaterThanOrEqualTo((long) THREADS * CALLS_PER_THREAD));
+        assertThat(meterRegistry.find("hikaricp.connections.pending").tag("pool", "shareit").gauge(), notNullValue());
+        assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "shareit").gauge().value(), equalTo(2.0));
+    }
+
+    @Test
+    public void exhaustedPoolFailsAfterConnectionTimeout() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        CountDownLatch held = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 2; i++) {
+            executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForObject("select 1", Integer.class);
+                held.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        held.await(10, TimeUnit.SECONDS);
+        double timeoutsBefore = meterRegistry.find("hikaricp.connections.timeout").tag("pool", "shareit").counter().count();
+
+        long startedAt = System.nanoTime();
+        try {
+            assertThrows(CannotCreateTransactionException.class, () -> transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.queryForObject("select 1", Integer.class)));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), lessThan(5000L));
+        assertThat(meterRegistry.find("hikaricp.connections.timeout").tag("pool", "shareit").counter().count(),
+                equalTo(timeoutsBefore + 1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Основная БД и реплика - две разные H2 в памяти; репликации между ними нет, поэтому видно, куда ушёл запрос
+@SpringBootTest(properties = {
+        "shareit.datasource.routing.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "shareit.datasource.replica.url=jdbc:h2:mem:routing-replica;INIT=RUNSCRIPT FROM 'classpath:schema.sql'",
+        "shareit.datasource.replica.username=test",
+        "shareit.datasource.replica.password=test"
+})
+@AutoConfigureMockMvc
+public class ReadReplicaRoutingTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void start() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+    }
+
+    @AfterEach
+    public void clean() {
+        primary.update("DELETE FROM items");
+        replica.update("DELETE FROM items");
+        primary.update("DELETE FROM users");
+        replica.update("DELETE FROM users");
+    }
+
+    @Test
+    public void createUser_writesToPrimary() {
+        UserDto user = userService.createUser(new UserDto(null, "primary", "primary@mail.ru"));
+
+        assertThat(primary.queryForObject("SELECT name FROM users WHERE id = ?", String.class, user.getId()),
+                equalTo("primary"));
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM users", Long.class), equalTo(0L));
+    }
+
+    @Test
+    public void getAllUsers_readsFromReplica() {
+        userService.createUser(new UserDto(null, "primary", "primary@mail.ru"));
+        assertThat(userService.getAllUsers(), empty());
+
+        replica.update("INSERT INTO users (name, email) VALUES ('replica', 'replica@mail.ru')");
+
+        Collection<String> names = userService.getAllUsers()
+                .stream()
+                .map(UserDto::getName)
+                .collect(Collectors.toList());
+        assertThat(names, contains("replica"));
+    }
+
+    @Test
+    public void updateUser_readsInsideWriteTransactionFromPrimary() {
+        UserDto user = userService.createUser(new UserDto(null, "before", "before@mail.ru"));
+
+        UserDto updated = userService.updateUser(new UserDto(null, "after", null), user.getId());
+
+        assertThat(updated.getName(), equalTo("after"));
+        assertThat(primary.queryForObject("SELECT name FROM users WHERE id = ?", String.class, user.getId()),
+                equalTo("after"));
+    }
+
+    // Один HTTP-запрос: проверка пользователя в read-only транзакции (реплика), затем запись порции импорта.
+    // Соединение реплики не должно переходить в пишущую транзакцию того же запроса
+    @Test
+    public void importItems_readThenWriteInOneRequest_writesToPrimary() throws Exception {
+        UserDto user = userService.createUser(new UserDto(null, "owner", "owner@mail.ru"));
+        replica.update("INSERT INTO users (id, name, email) VALUES (?, 'owner', 'owner@mail.ru')", user.getId());
+
+        mockMvc.perform(post("/items/batch")
+                        .header("X-Sharer-User-Id", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\": \"drill\", \"description\": \"drill\", \"available\": true}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1));
+
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM items WHERE owner_id = ?", Long.class, user.getId()),
+                equalTo(1L));
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM items", Long.class), equalTo(0L));
+    }
+}
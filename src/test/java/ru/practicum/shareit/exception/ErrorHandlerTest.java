@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.CannotCreateTransactionException;
 
 @SpringBootTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -41,4 +42,10 @@ class ErrorHandlerTest {
         ErrorResponse error = errorHandler.handleThrowable(new Throwable("message"));
         Assertions.assertEquals(error.getError(), "message");
     }
-}
\ No newline at end of file
+
+    @Test
+    void connectionTimeoutTest() {
+        ErrorResponse error = errorHandler.handleUnavailable(new CannotCreateTransactionException("Connection is not available"));
+        Assertions.assertEquals(error.getError(), "База данных недоступна, повторите запрос позже");
+    }
+}
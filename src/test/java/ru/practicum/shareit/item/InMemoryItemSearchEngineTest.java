@@ -0,0 +1,90 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.InMemoryItemSearchEngine;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryItemSearchEngineTest {
+    @Mock
+    ItemRepository itemRepository;
+
+    private final User user = new User(1L, "Anastasiya", "ana@mail.ru");
+
+    private InMemoryItemSearchEngine searchEngine;
+
+    @BeforeEach
+    public void start() {
+        searchEngine = new InMemoryItemSearchEngine(itemRepository);
+        when(itemRepository.findByIsAvailableTrue()).thenReturn(List.of(
+                new Item(1L, "Отвертка", "Аккумуляторная отвертка, в комплекте дрель-насадка", true, user, null),
+                new Item(2L, "Дрель", "Простая дрель", true, user, null),
+                new Item(3L, "Клей", "Клей Момент", true, user, null)));
+        searchEngine.rebuild();
+    }
+
+    @Test
+    public void search_shouldRankNameMatchesFirstAndMatchPrefixes() {
+        assertThat(searchEngine.search("ДРЕЛ", 0, 10), contains(2L, 1L));
+        assertThat(searchEngine.search("аккумуляторная дрель", 0, 10), contains(1L));
+        assertThat(searchEngine.search("пила", 0, 10), empty());
+    }
+
+    @Test
+    public void search_shouldPaginateResults() {
+        assertThat(searchEngine.search("дрель", 1, 1), contains(1L));
+        assertThat(searchEngine.search("дрель", 2, 1), empty());
+    }
+
+    @Test
+    public void index_shouldApplyUpdatesAndRemovals() {
+        searchEngine.index(new Item(3L, "Дрель ударная", "Мощная", true, user, null));
+        searchEngine.index(new Item(2L, "Дрель", "Простая дрель", false, user, null));
+        searchEngine.remove(1L);
+
+        assertThat(searchEngine.search("дрель", 0, 10), contains(3L));
+        assertThat(searchEngine.search("клей", 0, 10), empty());
+    }
+
+    @Test
+    public void index_insideTransaction_appliesOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchEngine.index(new Item(4L, "Дрель аккумуляторная", "Новая", true, user, null));
+            searchEngine.remove(2L);
+            assertThat(searchEngine.search("дрель", 0, 10), contains(2L, 1L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(searchEngine.search("дрель", 0, 10), contains(4L, 1L));
+    }
+
+    @Test
+    public void index_insideRolledBackTransaction_leavesIndexUnchanged() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchEngine.index(new Item(4L, "Дрель аккумуляторная", "Новая", true, user, null));
+            searchEngine.index(new Item(3L, "Клей", "Дрель", false, user, null));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(searchEngine.search("дрель", 0, 10), contains(2L, 1L));
+        assertThat(searchEngine.search("клей", 0, 10), contains(3L));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+// Список вещей владельца без индекса бронирований (запрос к БД) должен выбирать те же lastBooking/nextBooking,
+// что и BookingTimeline, построенный по тем же данным
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fallback",
+        "shareit.bookings.timeline.enabled=false",
+        "shareit.items.summary.enabled=false"
+})
+public class ItemBookingsFallbackTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void getAllUsersItems_withoutTimeline_choosesSameBookingsAsTimeline() {
+        User owner = userRepository.save(new User(null, "owner", "fallback-owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "fallback-booker@mail.ru"));
+        Item current = itemRepository.findById(itemService.createItem(
+                new ItemDto(null, "drill", "current booking", true, null, null), owner.getId()).getId()).get();
+        Item past = itemRepository.findById(itemService.createItem(
+                new ItemDto(null, "saw", "past bookings", true, null, null), owner.getId()).getId()).get();
+        itemService.createItem(new ItemDto(null, "ladder", "no bookings", true, null, null), owner.getId());
+        LocalDateTime now = LocalDateTime.now();
+
+        // Идущее бронирование - последнее, хотя еще не закончилось; отклоненные не учитываются
+        save(now.minusDays(5), now.minusDays(4), current, booker, Status.APPROVED);
+        Booking running = save(now.minusHours(2), now.plusDays(1), current, booker, Status.APPROVED);
+        save(now.minusHours(1), now.minusMinutes(30), current, booker, Status.REJECTED);
+        save(now.plusDays(2), now.plusDays(3), current, booker, Status.REJECTED);
+        Booking waiting = save(now.plusDays(4), now.plusDays(5), current, booker, Status.WAITING);
+        // Из завершившихся - начавшееся позже всех, даже если раньше началась отмененная бронь, закончившаяся позже
+        save(now.minusDays(10), now.minusDays(9), past, booker, Status.APPROVED);
+        save(now.minusDays(20), now.minusDays(1), past, booker, Status.CANCELED);
+        Booking latest = save(now.minusDays(3), now.minusDays(2), past, booker, Status.CANCELED);
+
+        List<ItemDtoFull> items = new ArrayList<>(itemService.getAllUsersItems(owner.getId(), 0, 10));
+        BookingTimeline timeline = new BookingTimeline(bookingRepository, true);
+        timeline.rebuild();
+        LocalDateTime checked = LocalDateTime.now();
+
+        assertThat(items.size(), equalTo(3));
+        for (ItemDtoFull item : items) {
+            // Список и запрос одного предмета выбирают одни и те же бронирования
+            ItemDtoFull single = itemService.getItemById(item.getId(), owner.getId());
+            for (ItemDtoFull checkedItem : List.of(item, single)) {
+                assertThat(checkedItem.getLastBooking() == null ? null : checkedItem.getLastBooking().getId(),
+                        equalTo(timeline.findLast(item.getId(), checked).map(BookingInterval::getId).orElse(null)));
+                assertThat(checkedItem.getNextBooking() == null ? null : checkedItem.getNextBooking().getId(),
+                        equalTo(timeline.findNext(item.getId(), checked).map(BookingInterval::getId).orElse(null)));
+            }
+        }
+        assertThat(items.get(0).getLastBooking().getId(), equalTo(running.getId()));
+        assertThat(items.get(0).getLastBooking().getBookerId(), equalTo(booker.getId()));
+        assertThat(items.get(0).getNextBooking().getId(), equalTo(waiting.getId()));
+        assertThat(items.get(1).getLastBooking().getId(), equalTo(latest.getId()));
+    }
+
+    private Booking save(LocalDateTime start, LocalDateTime end, Item item, User booker, Status status) {
+        return bookingRepository.save(new Booking(null, start, end, item, booker, status));
+    }
+}
@@ -1,29 +1,47 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentDtoFull;
 import ru.practicum.shareit.item.controller.ItemController;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
 class ItemControllerTest {
@@ -31,6 +49,8 @@ class ItemControllerTest {
     private ItemController itemController;
     @Mock
     private ItemService itemService;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     private final User user = new User(1L, "test", "rest@mail.ru");
 
@@ -70,22 +90,71 @@ class ItemControllerTest {
     @Test
     void getItems() {
         Collection<ItemDtoFull> collection = List.of(ItemMapper.toItemDtoFull(ItemMapper.toItem(itemDto2, user, null), null, null, null));
-        when(itemService.getAllUsersItems(eq(1L)))
+        when(itemService.getAllUsersItems(eq(1L), eq(0), eq(10)))
                 .thenReturn(collection);
 
-        Collection<ItemDtoFull> list = itemController.getAllUsersItems(1L);
+        Collection<ItemDtoFull> list = itemController.getAllUsersItems(1L, 0, 10);
         assertEquals(1, Objects.requireNonNull(list).size());
-        verify(itemService).getAllUsersItems(eq(1L));
+        verify(itemService).getAllUsersItems(eq(1L), eq(0), eq(10));
+    }
+
+    @Test
+    void exportItems_shouldStreamNdjsonOnlyWhenRequested() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(itemController).build();
+        doAnswer(invocation -> {
+            Consumer<ItemDto> action = invocation.getArgument(1);
+            action.accept(itemDto2);
+            action.accept(itemDto3);
+            return null;
+        }).when(itemService).exportItems(eq(1L), any());
+
+        MvcResult result = mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("update_name", objectMapper.readValue(lines[1], ItemDto.class).getName());
+        verify(itemService).checkUserId(1L);
+
+        mvc.perform(get("/items").header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        verify(itemService).getAllUsersItems(eq(1L), eq(0), eq(10));
+    }
+
+    @Test
+    void getAvailability_parsesIsoPeriod() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(itemController).build();
+        LocalDateTime from = LocalDateTime.of(2023, 11, 6, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2023, 11, 7, 10, 0);
+        when(itemService.getAvailability(1L, from, to))
+                .thenReturn(new ItemAvailabilityDto(1L, from, to, List.of(), List.of(new TimeIntervalDto(from, to))));
+
+        mvc.perform(get("/items/1/availability")
+                        .param("from", "2023-11-06T10:00:00")
+                        .param("to", "2023-11-07T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(1))
+                .andExpect(jsonPath("$.free.length()").value(1));
+        verify(itemService).getAvailability(1L, from, to);
     }
 
     @Test
     void findItem() {
-        when(itemService.findItem(eq("uPd"), eq(1L)))
+        when(itemService.findItem(eq("uPd"), eq(0), eq(10), eq(1L)))
                 .thenReturn(List.of(itemDto3));
 
-        Collection<ItemDto> list = itemController.findItem("uPd", 1L);
+        Collection<ItemDto> list = itemController.findItem("uPd", 0, 10, 1L);
         assertEquals(1, Objects.requireNonNull(list.size()));
-        verify(itemService).findItem(eq("uPd"), eq(1L));
+        verify(itemService).findItem(eq("uPd"), eq(0), eq(10), eq(1L));
     }
 
     @Test
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.metrics.SqlStatementCounter;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+public class ItemOwnerIndexTest {
+    @Autowired
+    private ItemOwnerIndex itemOwnerIndex;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    private User owner;
+    private User stranger;
+
+    @BeforeEach
+    public void start() {
+        owner = userRepository.save(new User(null, "indexOwner", "index-owner-" + System.nanoTime() + "@mail.ru"));
+        stranger = userRepository.save(new User(null, "indexStranger", "index-stranger-" + System.nanoTime() + "@mail.ru"));
+    }
+
+    @Test
+    public void createAndDeleteItem_updateIndexAfterCommit() {
+        ItemDto item = itemService.createItem(new ItemDto(null, "drill", "index", true, null, null), owner.getId());
+
+        // Положительный ответ - из памяти, без обращения к БД
+        sqlStatementCounter.start();
+        assertThat(itemOwnerIndex.isOwner(owner.getId(), item.getId()), equalTo(true));
+        assertThat(itemOwnerIndex.hasItems(owner.getId()), equalTo(true));
+        assertThat(sqlStatementCounter.finish(), equalTo(0));
+
+        // Отрицательный перепроверяется запросом
+        sqlStatementCounter.start();
+        assertThat(itemOwnerIndex.isOwner(stranger.getId(), item.getId()), equalTo(false));
+        assertThat(itemOwnerIndex.hasItems(stranger.getId()), equalTo(false));
+        assertThat(sqlStatementCounter.finish(), equalTo(2));
+
+        itemRepository.deleteById(item.getId());
+        assertThat(itemOwnerIndex.isOwner(owner.getId(), item.getId()), equalTo(false));
+        assertThat(itemOwnerIndex.hasItems(owner.getId()), equalTo(false));
+    }
+
+    @Test
+    public void itemSavedThroughRepository_isIndexedByEntityListener() {
+        Item item = itemRepository.save(new Item(null, "saw", "index", true, owner, null));
+
+        sqlStatementCounter.start();
+        assertThat(itemOwnerIndex.isOwner(owner.getId(), item.getId()), equalTo(true));
+        assertThat(sqlStatementCounter.finish(), equalTo(0));
+    }
+}
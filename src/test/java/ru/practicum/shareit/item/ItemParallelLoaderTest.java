@@ -0,0 +1,90 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemParallelLoader;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "shareit.items.parallel-fetch.enabled=true",
+        "shareit.items.parallel-fetch.threads=2",
+        "shareit.bookings.timeline.enabled=false"
+})
+public class ItemParallelLoaderTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemParallelLoader itemParallelLoader;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private Booking last;
+    private Booking next;
+
+    @BeforeEach
+    public void start() {
+        owner = userRepository.save(new User(null, "parallelOwner", "parallel-owner-" + System.nanoTime() + "@mail.ru"));
+        booker = userRepository.save(new User(null, "parallelBooker", "parallel-booker-" + System.nanoTime() + "@mail.ru"));
+        item = itemRepository.save(new Item(null, "drill", "parallel", true, owner, null));
+        last = bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                item, booker, Status.APPROVED));
+        next = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                item, booker, Status.WAITING));
+        commentRepository.save(new Comment(null, "good", item, booker, LocalDateTime.now()));
+    }
+
+    @Test
+    public void getItemById_ownerGetsBookingsAndComments() {
+        ItemDtoFull dto = itemService.getItemById(item.getId(), owner.getId());
+
+        assertThat(itemParallelLoader.isEnabled(), equalTo(true));
+        assertThat(dto.getId(), equalTo(item.getId()));
+        assertThat(dto.getLastBooking().getId(), equalTo(last.getId()));
+        assertThat(dto.getNextBooking().getId(), equalTo(next.getId()));
+        assertThat(dto.getComments().size(), equalTo(1));
+        assertThat(dto.getComments().get(0).getAuthorName(), equalTo("parallelBooker"));
+    }
+
+    @Test
+    public void getItemById_otherUserGetsNoBookings() {
+        ItemDtoFull dto = itemService.getItemById(item.getId(), booker.getId());
+
+        assertThat(dto.getLastBooking(), nullValue());
+        assertThat(dto.getNextBooking(), nullValue());
+        assertThat(dto.getComments().size(), equalTo(1));
+    }
+
+    @Test
+    public void getItemById_unknownItemIsNotFound() {
+        assertThrows(NotFoundException.class, () -> itemService.getItemById(Long.MAX_VALUE, owner.getId()));
+    }
+}
@@ -1,4 +1,98 @@
 package ru.practicum.shareit.item;
 
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoForRequest;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@DataJpaTest
 public class ItemRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    private User owner;
+
+    @BeforeEach
+    public void start() {
+        owner = userRepository.save(new User(null, "owner", "owner@mail.ru"));
+        User other = userRepository.save(new User(null, "other", "other@mail.ru"));
+        for (int i = 0; i < 5; i++) {
+            itemRepository.save(new Item(null, "item" + i, "description", true, owner, null));
+        }
+        itemRepository.save(new Item(null, "foreign", "description", true, other, null));
+    }
+
+    @Test
+    public void findByUserId_shouldReturnRequestedPage() {
+        List<Item> page = itemRepository.findByUserId(owner.getId(), PageRequest.of(1, 2, Sort.by("id")));
+
+        assertThat(page.size(), equalTo(2));
+        assertThat(page.get(0).getName(), equalTo("item2"));
+    }
+
+    @Test
+    public void findByUserId_withOffsetPage_shouldStartAtExactRow() {
+        List<Item> page = itemRepository.findByUserId(owner.getId(), OffsetPageRequest.of(3, 2, Sort.by("id")));
+
+        assertThat(page.size(), equalTo(2));
+        assertThat(page.get(0).getName(), equalTo("item3"));
+        assertThat(page.get(1).getName(), equalTo("item4"));
+    }
+
+    @Test
+    public void streamByUserId_shouldReturnOnlyOwnersItemsInIdOrder() {
+        List<String> names;
+        try (Stream<Item> items = itemRepository.streamByUserId(owner.getId())) {
+            names = items.map(Item::getName).collect(Collectors.toList());
+        }
+
+        assertThat(names, equalTo(List.of("item0", "item1", "item2", "item3", "item4")));
+    }
+
+    @Test
+    public void findItemDtosByIdIn_shouldProjectItemFields() {
+        List<Item> items = itemRepository.findByUserId(owner.getId(), PageRequest.of(0, 2, Sort.by("id")));
+
+        List<ItemDto> dtos = itemRepository.findItemDtosByIdIn(List.of(items.get(0).getId(), items.get(1).getId()));
+
+        assertThat(dtos.size(), equalTo(2));
+        assertThat(dtos.contains(ItemMapper.toItemDto(items.get(0))), equalTo(true));
+        assertThat(dtos.contains(ItemMapper.toItemDto(items.get(1))), equalTo(true));
+    }
+
+    @Test
+    public void findItemDtosByRequestIdIn_shouldReturnOnlyAnswersToRequests() {
+        ItemRequest request = itemRequestRepository.save(new ItemRequest(null, "request", LocalDateTime.now(), owner));
+        Item answer = itemRepository.save(new Item(null, "answer", "description", true, owner, request));
+
+        List<ItemDtoForRequest> dtos = itemRepository.findItemDtosByRequestIdIn(List.of(request.getId()));
+
+        assertThat(dtos.size(), equalTo(1));
+        assertThat(dtos.get(0).getId(), equalTo(answer.getId()));
+        assertThat(dtos.get(0).getRequestId(), equalTo(request.getId()));
+    }
 }
@@ -1,33 +1,58 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.batch.BatchImporter;
+import ru.practicum.shareit.batch.BatchResultDto;
+import ru.practicum.shareit.batch.BatchRowErrorDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
 import ru.practicum.shareit.booking.util.Status;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.exception.WrongAccessException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.summary.ItemSummaryService;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.OffsetPageRequest;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.*;
 
@@ -51,6 +76,25 @@ public class ItemServiceImplTest {
     @Mock
     BookingRepository bookingRepository;
 
+    @Mock
+    ItemSearchEngine itemSearchEngine;
+
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    BookingTimeline bookingTimeline;
+
+    @Mock
+    ItemOwnerIndex itemOwnerIndex;
+
+    @Mock
+    ItemSummaryService itemSummaryService;
+
+    @Spy
+    BatchImporter batchImporter = new BatchImporter(new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator(),
+            mock(EntityManager.class), mock(PlatformTransactionManager.class));
+
     @Test
     public void createItem() {
         User user = new User(1L, "Anastasiya", "ana@mail.ru");
@@ -74,6 +118,29 @@ public class ItemServiceImplTest {
         verify(userRepository).findById(anyLong());
         verify(itemRequestRepository).findById(anyLong());
         verify(itemRepository).save(any());
+        verify(itemSearchEngine).index(item);
+    }
+
+    @Test
+    public void importItems_loadsReferencedRequestsOncePerChunk() {
+        ItemRequest first = new ItemRequest(5L, "first", LocalDateTime.now(), null);
+        ItemRequest second = new ItemRequest(6L, "second", LocalDateTime.now(), null);
+        String json = "[{\"name\": \"a\", \"description\": \"a\", \"available\": true, \"requestId\": 5}," +
+                "{\"name\": \"b\", \"description\": \"b\", \"available\": true, \"requestId\": 6}," +
+                "{\"name\": \"c\", \"description\": \"c\", \"available\": true, \"requestId\": 5}," +
+                "{\"name\": \"d\", \"description\": \"d\", \"available\": true, \"requestId\": 7}," +
+                "{\"name\": \"e\", \"description\": \"e\", \"available\": true}]";
+
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findAllById(Set.of(5L, 6L, 7L))).thenReturn(List.of(first, second));
+        when(itemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchResultDto result = itemService.importItems(1L, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getCreated(), equalTo(4));
+        assertThat(result.getErrors().stream().map(BatchRowErrorDto::getIndex).collect(Collectors.toList()), equalTo(List.of(3)));
+        verify(itemRequestRepository, times(1)).findAllById(any());
+        verify(itemRequestRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -85,6 +152,7 @@ public class ItemServiceImplTest {
 
         when(userRepository.existsById(anyLong())).thenReturn(true);
         when(itemRepository.existsById(anyLong())).thenReturn(true);
+        when(itemOwnerIndex.isOwner(1L, 1L)).thenReturn(true);
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(itemRepository.save(any())).thenReturn(item);
 
@@ -113,17 +181,38 @@ public class ItemServiceImplTest {
         verify(itemRepository).findById(anyLong());
     }
 
+    @Test
+    public void deleteItem_byNotOwner_shouldThrowExceptionWithoutLoadingItem() {
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsById(anyLong())).thenReturn(true);
+        when(itemOwnerIndex.isOwner(2L, 1L)).thenReturn(false);
+
+        assertThrows(WrongAccessException.class, () -> itemService.deleteItem(1L, 2L));
+
+        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).deleteById(anyLong());
+    }
+
     @Test
     void getAllItemsByUser_whenInvoked_thenReturnedEmptyList() {
         Long userId = 1L;
         when(userRepository.existsById(anyLong())).thenReturn(true);
 
-        Collection<ItemDtoFull> actualItems = itemService.getAllUsersItems(userId);
+        Collection<ItemDtoFull> actualItems = itemService.getAllUsersItems(userId, 0, 10);
 
         assertThat(actualItems, empty());
         verify(itemRepository, never()).findById(anyLong());
         verify(commentRepository, never()).findAllByItemId(anyLong());
-        verify(itemRepository).findByUserId(anyLong());
+        verify(itemRepository).findByUserId(anyLong(), any());
+    }
+
+    @Test
+    void getAllItemsByUser_whenFromIsInsidePage_thenExactOffsetIsRequested() {
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+
+        itemService.getAllUsersItems(1L, 5, 10);
+
+        verify(itemRepository).findByUserId(1L, OffsetPageRequest.of(5, 10, Sort.by("id")));
     }
 
     @Test
@@ -135,11 +224,10 @@ public class ItemServiceImplTest {
         List<Item> expectedItems = List.of(item);
 
         when(userRepository.existsById(anyLong())).thenReturn(true);
-        when(itemRepository.findByUserId(anyLong())).thenReturn(expectedItems);
-        when(bookingRepository.getFirstByItemIdAndEndBeforeOrderByEnd(anyLong(), any())).thenReturn(booking);
-        when(bookingRepository.getTopByItemIdAndStartAfterOrderByStart(anyLong(), any())).thenReturn(null);
+        when(itemRepository.findByUserId(anyLong(), any())).thenReturn(expectedItems);
+        when(bookingRepository.findLastAndNextNotRejectedByItemIds(anyCollection(), any())).thenReturn(List.of(booking));
 
-        Collection<ItemDtoFull> items = itemService.getAllUsersItems(user.getId());
+        Collection<ItemDtoFull> items = itemService.getAllUsersItems(user.getId(), 0, 10);
         List<ItemDtoFull> actualItems = new ArrayList<>(items);
 
         assertThat(expectedItems.size(), equalTo(actualItems.size()));
@@ -148,8 +236,79 @@ public class ItemServiceImplTest {
         assertThat(expectedItems.get(0).getDescription(), equalTo(actualItems.get(0).getDescription()));
         assertThat(expectedItems.get(0).getIsAvailable(), equalTo(actualItems.get(0).getAvailable()));
 
-        verify(itemRepository).findByUserId(anyLong());
-        verify(commentRepository).findAllByItemId(anyLong());
+        verify(itemRepository).findByUserId(anyLong(), any());
+        verify(bookingRepository).findLastAndNextNotRejectedByItemIds(anyCollection(), any());
+        verify(commentRepository).findAllByItemIdIn(anyCollection());
+        verify(commentRepository, never()).findAllByItemId(anyLong());
+    }
+
+    @Test
+    void getAllItemsByUser_whenTimelineIsReady_thenBookingsAreNotQueried() {
+        User user = new User(1L, "Anastasiya", "ana@mail.ru");
+        Item item = new Item(1L, "item", "description", true, user, null);
+        BookingInterval last = new BookingInterval(3L, 1L, 2L, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), Status.APPROVED);
+        BookingInterval next = new BookingInterval(4L, 1L, 2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), Status.WAITING);
+
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findByUserId(anyLong(), any())).thenReturn(List.of(item));
+        when(bookingTimeline.isReady()).thenReturn(true);
+        when(bookingTimeline.findLast(eq(1L), any())).thenReturn(Optional.of(last));
+        when(bookingTimeline.findNext(eq(1L), any())).thenReturn(Optional.of(next));
+
+        List<ItemDtoFull> items = new ArrayList<>(itemService.getAllUsersItems(user.getId(), 0, 10));
+
+        assertThat(items.get(0).getLastBooking().getId(), equalTo(3L));
+        assertThat(items.get(0).getNextBooking().getId(), equalTo(4L));
+        assertThat(items.get(0).getNextBooking().getBookerId(), equalTo(2L));
+        verify(bookingRepository, never()).findLastAndNextNotRejectedByItemIds(anyCollection(), any());
+    }
+
+    @Test
+    void getAvailability_mergesAdjacentBookingsAndClipsToPeriod() {
+        LocalDateTime from = LocalDateTime.of(2023, 11, 6, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(bookingTimeline.isReady()).thenReturn(true);
+        when(bookingTimeline.findOverlapping(1L, from, to)).thenReturn(List.of(
+                new BookingInterval(1L, 1L, 2L, from.minusHours(2), from.plusHours(1), Status.APPROVED),
+                new BookingInterval(2L, 1L, 2L, from.plusHours(4), from.plusHours(6), Status.WAITING),
+                new BookingInterval(3L, 1L, 2L, from.plusHours(6), from.plusHours(8), Status.APPROVED),
+                new BookingInterval(4L, 1L, 2L, from.plusHours(10), from.plusHours(12), Status.CANCELED)));
+
+        ItemAvailabilityDto availability = itemService.getAvailability(1L, from, to);
+
+        assertThat(availability.getBusy(), contains(
+                new TimeIntervalDto(from, from.plusHours(1)),
+                new TimeIntervalDto(from.plusHours(4), from.plusHours(8))));
+        assertThat(availability.getFree(), contains(
+                new TimeIntervalDto(from.plusHours(1), from.plusHours(4)),
+                new TimeIntervalDto(from.plusHours(8), to)));
+        verify(bookingRepository, never()).findAllByItemIdAndStatusInAndStartBeforeAndEndAfterOrderByStart(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void getAvailability_whenTimelineIsNotReady_thenBookingsAreQueried() {
+        User user = new User(1L, "Anastasiya", "ana@mail.ru");
+        Item item = new Item(1L, "item", "description", true, user, null);
+        LocalDateTime from = LocalDateTime.of(2023, 11, 6, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findAllByItemIdAndStatusInAndStartBeforeAndEndAfterOrderByStart(eq(1L), anyCollection(), eq(to), eq(from)))
+                .thenReturn(List.of(new Booking(1L, from.plusHours(20), to.plusHours(1), item, user, Status.WAITING)));
+
+        ItemAvailabilityDto availability = itemService.getAvailability(1L, from, to);
+
+        assertThat(availability.getBusy(), contains(new TimeIntervalDto(from.plusHours(20), to)));
+        assertThat(availability.getFree(), contains(new TimeIntervalDto(from, from.plusHours(20))));
+    }
+
+    @Test
+    void getAvailability_whenPeriodIsEmpty_thenValidationException() {
+        LocalDateTime from = LocalDateTime.of(2023, 11, 6, 0, 0);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(1L, from, from));
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(1L, from, from.plusYears(2)));
     }
 
     @Test
@@ -173,4 +332,46 @@ public class ItemServiceImplTest {
 
         verify(itemRepository).findAll();
     }
+
+    @Test
+    void findItem_shouldKeepRelevanceOrder() {
+        User user = new User(1L, "Anastasiya", "ana@mail.ru");
+        Item first = new Item(1L, "дрель", "простая дрель", true, user, null);
+        Item second = new Item(2L, "отвертка", "аккумуляторная дрель", true, user, null);
+
+        when(itemSearchEngine.search("дрель", 0, 10)).thenReturn(List.of(2L, 1L));
+        when(itemRepository.findItemDtosByIdIn(List.of(2L, 1L))).thenReturn(List.of(ItemMapper.toItemDto(first), ItemMapper.toItemDto(second)));
+
+        List<ItemDto> items = new ArrayList<>(itemService.findItem("дрель", 0, 10, 1L));
+
+        assertThat(items.size(), equalTo(2));
+        assertThat(items.get(0).getId(), equalTo(2L));
+        assertThat(items.get(1).getId(), equalTo(1L));
+    }
+
+    @Test
+    void findItem_whenTextIsBlank_thenSearchIsNotCalled() {
+        Collection<ItemDto> items = itemService.findItem(" ", 0, 10, 1L);
+
+        assertThat(items, empty());
+        verify(itemSearchEngine, never()).search(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void exportItems_shouldPassEachItemAndDetachIt() {
+        User user = new User(1L, "Anastasiya", "ana@mail.ru");
+        Item first = new Item(1L, "item", "description", true, user, null);
+        Item second = new Item(2L, "item2", "description2", true, user, null);
+        List<ItemDto> exported = new ArrayList<>();
+
+        when(itemRepository.streamByUserId(1L)).thenReturn(Stream.of(first, second));
+
+        itemService.exportItems(1L, exported::add);
+
+        assertThat(exported.size(), equalTo(2));
+        assertThat(exported.get(1).getName(), equalTo("item2"));
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+        verify(itemRepository, never()).streamAll();
+    }
 }
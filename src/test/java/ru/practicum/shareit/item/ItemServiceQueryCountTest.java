@@ -0,0 +1,159 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.owner.ItemOwnerIndex;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.InMemoryItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.summary.ItemSummaryRepository;
+import ru.practicum.shareit.item.summary.ItemSummaryService;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ItemServiceQueryCountTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ItemSummaryRepository itemSummaryRepository;
+
+    private ItemServiceImpl itemService;
+    private ItemServiceImpl summaryItemService;
+    private ItemSummaryService itemSummaryService;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void start() {
+        itemService = itemService(summaryService(false));
+        itemSummaryService = summaryService(true);
+        summaryItemService = itemService(itemSummaryService);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void getAllUsersItems_statementCountDoesNotDependOnItemCount() {
+        User smallOwner = createOwnerWithItems("small", 2);
+        User largeOwner = createOwnerWithItems("large", 30);
+
+        long smallCount = countStatements(smallOwner.getId(), 2);
+        long largeCount = countStatements(largeOwner.getId(), 30);
+
+        assertThat(largeCount, equalTo(smallCount));
+        assertThat(smallCount, equalTo(4L));
+    }
+
+    // Список строится из страницы предметов и их сводок (плюс проверка пользователя) и совпадает со списком из броней
+    @Test
+    public void getAllUsersItemsFromSummary_readsPageAndSummariesAndMatchesBookings() {
+        User smallOwner = createOwnerWithItems("smallSummary", 2);
+        User largeOwner = createOwnerWithItems("largeSummary", 30);
+        entityManager.flush();
+        itemSummaryService.refresh(itemRepository.findIdsAfter(0, PageRequest.of(0, 1_000)));
+
+        assertThat(countStatements(summaryItemService, smallOwner.getId(), 2), equalTo(3L));
+        assertThat(countStatements(summaryItemService, largeOwner.getId(), 30), equalTo(3L));
+
+        List<ItemDtoFull> fromSummary = new ArrayList<>(summaryItemService.getAllUsersItems(largeOwner.getId(), 0, 100));
+        List<ItemDtoFull> fromBookings = new ArrayList<>(itemService.getAllUsersItems(largeOwner.getId(), 0, 100));
+        for (int i = 0; i < fromSummary.size(); i++) {
+            assertThat(fromSummary.get(i).getLastBooking().getId(), equalTo(fromBookings.get(i).getLastBooking().getId()));
+            assertThat(fromSummary.get(i).getNextBooking().getId(), equalTo(fromBookings.get(i).getNextBooking().getId()));
+            assertThat(fromSummary.get(i).getComments().get(0).getId(), equalTo(fromBookings.get(i).getComments().get(0).getId()));
+            assertThat(fromSummary.get(i).getCommentCount(), equalTo(1));
+        }
+    }
+
+    private long countStatements(long ownerId, int expectedItems) {
+        return countStatements(itemService, ownerId, expectedItems);
+    }
+
+    private long countStatements(ItemServiceImpl service, long ownerId, int expectedItems) {
+        entityManager.flush();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        Collection<ItemDtoFull> items = service.getAllUsersItems(ownerId, 0, 100);
+
+        assertThat(items.size(), equalTo(expectedItems));
+        for (ItemDtoFull item : items) {
+            assertThat(item.getLastBooking(), notNullValue());
+            assertThat(item.getNextBooking(), notNullValue());
+            assertThat(item.getComments().size(), equalTo(1));
+            assertThat(item.getComments().get(0).getAuthorName(), notNullValue());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User createOwnerWithItems(String name, int itemCount) {
+        User owner = userRepository.save(new User(null, name, name + "@mail.ru"));
+        User booker = userRepository.save(new User(null, name + "Booker", name + "Booker@mail.ru"));
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(itemRepository.save(new Item(null, name + i, "description", true, owner, null)));
+        }
+        for (Item item : items) {
+            bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                    item, booker, Status.APPROVED));
+            bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                    item, booker, Status.WAITING));
+            commentRepository.save(new Comment(null, "comment", item, booker, LocalDateTime.now()));
+        }
+        return owner;
+    }
+
+    private ItemSummaryService summaryService(boolean enabled) {
+        return new ItemSummaryService(itemSummaryRepository, itemRepository, bookingRepository, commentRepository,
+                new ObjectMapper().findAndRegisterModules(), transactionManager, enabled, 10);
+    }
+
+    private ItemServiceImpl itemService(ItemSummaryService summaryService) {
+        return new ItemServiceImpl(userRepository, itemRepository, bookingRepository, commentRepository, itemRequestRepository,
+                new InMemoryItemSearchEngine(itemRepository), entityManager, new BookingTimeline(bookingRepository, false), null,
+                transactionManager, null, new ItemOwnerIndex(itemRepository, true), summaryService);
+    }
+}
@@ -0,0 +1,160 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoFull;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.util.Status;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CommentDtoFull;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoFull;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.summary.ItemSummary;
+import ru.practicum.shareit.item.summary.ItemSummaryJob;
+import ru.practicum.shareit.item.summary.ItemSummaryRepository;
+import ru.practicum.shareit.item.summary.ItemSummaryService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@SpringBootTest
+public class ItemSummaryTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemSummaryJob itemSummaryJob;
+    @Autowired
+    private ItemSummaryRepository itemSummaryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemSummaryService itemSummaryService;
+
+    private User owner;
+    private User booker;
+    private ItemDto item;
+
+    @BeforeEach
+    public void start() {
+        owner = userRepository.save(new User(null, "summaryOwner", "summary-owner-" + System.nanoTime() + "@mail.ru"));
+        booker = userRepository.save(new User(null, "summaryBooker", "summary-booker-" + System.nanoTime() + "@mail.ru"));
+        item = itemService.createItem(new ItemDto(null, "ladder", "summary", true, null, null), owner.getId());
+    }
+
+    @Test
+    public void bookingAndCommentWrites_updateSummaryAfterCommit() {
+        assertThat(itemSummaryRepository.findById(item.getId()).isPresent(), equalTo(false));
+        Booking past = bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(2),
+                itemRepository.findById(item.getId()).get(), booker, Status.APPROVED));
+
+        BookingDtoFull next = bookingService.createBooking(bookingDto(), booker.getId());
+        ItemSummary summary = itemSummaryRepository.findById(item.getId()).get();
+        assertThat(summary.getLastBookingId(), equalTo(past.getId()));
+        assertThat(summary.getNextBookingId(), equalTo(next.getId()));
+        assertThat(summary.getNextBookerId(), equalTo(booker.getId()));
+
+        // Отклоненная бронь перестает быть следующей
+        bookingService.confirmBooking(next.getId(), false, owner.getId());
+        assertThat(itemSummaryRepository.findById(item.getId()).get().getNextBookingId(), nullValue());
+
+        itemService.addComment(new CommentDto(null, "good", null, null, null), item.getId(), booker.getId());
+        ItemDtoFull dashboard = itemService.getAllUsersItems(owner.getId(), 0, 10).iterator().next();
+        assertThat(dashboard.getLastBooking().getId(), equalTo(past.getId()));
+        assertThat(dashboard.getNextBooking(), nullValue());
+        assertThat(dashboard.getCommentCount(), equalTo(1));
+        assertThat(dashboard.getComments().get(0).getText(), equalTo("good"));
+        assertThat(dashboard.getComments().get(0).getAuthorName(), equalTo("summaryBooker"));
+    }
+
+    @Test
+    public void expiredAndDriftedSummaries_areFixedByJob() {
+        BookingDtoFull booking = bookingService.createBooking(bookingDto(), booker.getId());
+        // Следующее бронирование "началось": сводка устарела, пока задание ее не обновит
+        ItemSummary summary = itemSummaryRepository.findById(item.getId()).get();
+        summary.setNextBookingStart(LocalDateTime.now().minusMinutes(1));
+        itemSummaryRepository.save(summary);
+        Booking started = bookingRepository.findById(booking.getId()).get();
+        started.setStart(LocalDateTime.now().minusMinutes(1));
+        bookingRepository.save(started);
+
+        ItemDtoFull dashboard = itemService.getAllUsersItems(owner.getId(), 0, 10).iterator().next();
+        assertThat(dashboard.getLastBooking().getId(), equalTo(booking.getId()));
+        assertThat(dashboard.getNextBooking(), nullValue());
+
+        assertThat(itemSummaryJob.refreshExpired(), greaterThanOrEqualTo(1));
+        summary = itemSummaryRepository.findById(item.getId()).get();
+        assertThat(summary.getLastBookingId(), equalTo(booking.getId()));
+        assertThat(summary.getNextBookingStart(), nullValue());
+
+        // Бронь, сохраненная в обход сервиса, попадает в сводку при полном пересчете
+        Booking direct = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(6),
+                itemRepository.findById(item.getId()).get(), booker, Status.WAITING));
+        assertThat(itemSummaryRepository.findById(item.getId()).get().getNextBookingId(), nullValue());
+        itemSummaryJob.rebuild();
+        assertThat(itemSummaryRepository.findById(item.getId()).get().getNextBookingId(), equalTo(direct.getId()));
+        assertThat(itemSummaryRepository.findAllById(List.of(item.getId())).size(), equalTo(1));
+    }
+
+    @Test
+    public void getAllUsersItems_fromSummaries_startsAtExactRow() {
+        ItemDto second = itemService.createItem(new ItemDto(null, "saw", "summary", true, null, null), owner.getId());
+        ItemDto third = itemService.createItem(new ItemDto(null, "drill", "summary", true, null, null), owner.getId());
+
+        List<Long> page = itemService.getAllUsersItems(owner.getId(), 1, 2)
+                .stream()
+                .map(ItemDtoFull::getId)
+                .collect(Collectors.toList());
+
+        assertThat(page, equalTo(List.of(second.getId(), third.getId())));
+    }
+
+    @Test
+    public void getAllUsersItems_fromSummaries_returnsAllComments() {
+        // Комментариев больше, чем помещается в сводку (latest-comments = 10)
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(commentRepository.save(new Comment(null, "comment " + i, itemRepository.findById(item.getId()).get(),
+                    booker, LocalDateTime.now())).getId());
+        }
+        itemSummaryService.refresh(List.of(item.getId()));
+
+        ItemDtoFull dashboard = itemService.getAllUsersItems(owner.getId(), 0, 10).iterator().next();
+
+        assertThat(dashboard.getCommentCount(), equalTo(12));
+        assertThat(dashboard.getComments().stream().map(CommentDtoFull::getId).collect(Collectors.toList()), equalTo(ids));
+    }
+
+    private BookingDto bookingDto() {
+        BookingDto dto = new BookingDto();
+        dto.setItemId(item.getId());
+        dto.setStart(LocalDateTime.now().plusDays(1));
+        dto.setEnd(LocalDateTime.now().plusDays(2));
+        return dto;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PerRequestCountInterceptorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RepositoryCallCounter repositoryCallCounter = new RepositoryCallCounter();
+    private final SqlStatementCounter sqlStatementCounter = new SqlStatementCounter();
+    private final PerRequestCountInterceptor repositoryCallInterceptor = new PerRequestCountInterceptor(meterRegistry,
+            repositoryCallCounter, "shareit.repository.calls.per.request", "calls");
+    private final PerRequestCountInterceptor sqlStatementInterceptor = new PerRequestCountInterceptor(meterRegistry,
+            sqlStatementCounter, "shareit.hibernate.statements.per.request", "statements");
+
+    @Test
+    public void afterCompletion_recordsCallsPerRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/bookings");
+
+        repositoryCallInterceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        repositoryCallCounter.increment();
+        repositoryCallCounter.increment();
+        repositoryCallInterceptor.afterCompletion(request, new MockHttpServletResponse(), new Object(), null);
+
+        DistributionSummary summary = meterRegistry.find("shareit.repository.calls.per.request")
+                .tag("method", "POST").tag("uri", "/bookings").summary();
+        assertThat(summary.count(), equalTo(1L));
+        assertThat(summary.totalAmount(), equalTo(2.0));
+    }
+
+    @Test
+    public void afterCompletion_recordsStatementsPerRequestAndKeepsSql() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookings/owner");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/bookings/owner");
+
+        sqlStatementInterceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        assertThat(sqlStatementCounter.inspect("select 1"), equalTo("select 1"));
+        sqlStatementCounter.inspect("select 2");
+        sqlStatementCounter.inspect("select 3");
+        sqlStatementInterceptor.afterCompletion(request, new MockHttpServletResponse(), new Object(), null);
+
+        DistributionSummary summary = meterRegistry.find("shareit.hibernate.statements.per.request")
+                .tag("method", "GET").tag("uri", "/bookings/owner").summary();
+        assertThat(summary.count(), equalTo(1L));
+        assertThat(summary.totalAmount(), equalTo(3.0));
+    }
+
+    @Test
+    public void increment_outsideRequestIsIgnored() {
+        repositoryCallCounter.increment();
+        sqlStatementCounter.inspect("select 1");
+
+        assertThat(repositoryCallCounter.finish(), equalTo(-1));
+        assertThat(sqlStatementCounter.finish(), equalTo(-1));
+        assertThat(meterRegistry.find("shareit.repository.calls.per.request").summary(), nullValue());
+    }
+
+    @Test
+    public void asyncRequest_dropsCounterOfReleasedThread() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookings/stream");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/bookings/stream");
+
+        sqlStatementInterceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        sqlStatementCounter.inspect("select 1");
+        sqlStatementInterceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), new Object());
+
+        // Поток вернулся в пул: выражения следующей задачи в нем не относятся к запросу
+        sqlStatementCounter.inspect("select 2");
+        assertThat(sqlStatementCounter.finish(), equalTo(-1));
+        assertThat(meterRegistry.find("shareit.hibernate.statements.per.request").summary(), nullValue());
+    }
+}
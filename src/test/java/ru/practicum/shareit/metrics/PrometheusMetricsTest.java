@@ -0,0 +1,75 @@
+package ru.practicum.shareit.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class PrometheusMetricsTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void request_recordsEndpointServiceAndStatementMetrics() throws Exception {
+        String body = mvc.perform(post("/users")
+                        .content(mapper.writeValueAsString(new UserDto(null, "metrics", "metrics@mail.ru")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long userId = mapper.readValue(body, UserDto.class).getId();
+        mvc.perform(get("/users/{id}", userId)).andExpect(status().isOk());
+
+        Timer service = meterRegistry.find("shareit.service.calls")
+                .tag("service", "UserServiceImpl").tag("method", "createUser").tag("exception", "none").timer();
+        assertThat(service, notNullValue());
+        assertThat(service.count(), greaterThanOrEqualTo(1L));
+        DistributionSummary statements = meterRegistry.find("shareit.hibernate.statements.per.request")
+                .tag("method", "POST").tag("uri", "/users").summary();
+        assertThat(statements, notNullValue());
+        assertThat(statements.count(), equalTo(1L));
+        assertThat(statements.totalAmount(), greaterThan(0.0));
+
+        String scrape = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(scrape, containsString("http_server_requests_seconds_bucket{"));
+        assertThat(scrape, containsString("uri=\"/users/{id}\""));
+        assertThat(scrape, containsString("shareit_service_calls_seconds_bucket{"));
+        assertThat(scrape, containsString("shareit_hibernate_statements_per_request_bucket{"));
+    }
+
+    @Test
+    public void failedServiceCall_isTaggedWithException() throws Exception {
+        mvc.perform(get("/users/{id}", 999_999L)).andExpect(status().isNotFound());
+
+        Timer failed = meterRegistry.find("shareit.service.calls")
+                .tag("service", "UserServiceImpl").tag("method", "getUserById").tag("exception", "NotFoundException").timer();
+        assertThat(failed, notNullValue());
+        assertThat(failed.count(), equalTo(1L));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+@DataJpaTest
+public class ItemRequestRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    private User user;
+    private final LocalDateTime created = LocalDateTime.of(2023, 11, 6, 12, 0);
+
+    @BeforeEach
+    public void start() {
+        user = userRepository.save(new User(null, "user", "user@mail.ru"));
+        User requester = userRepository.save(new User(null, "requester", "requester@mail.ru"));
+        itemRequestRepository.save(new ItemRequest(null, "own", created.plusDays(1), user));
+        itemRequestRepository.save(new ItemRequest(null, "first", created, requester));
+        itemRequestRepository.save(new ItemRequest(null, "second", created, requester));
+        itemRequestRepository.save(new ItemRequest(null, "third", created.minusDays(1), requester));
+    }
+
+    @Test
+    public void findDtosByRequesterIdNotBefore_shouldContinueAfterCursorWithEqualDates() {
+        List<ItemRequestDtoFull> all = itemRequestRepository.findDtosByRequesterIdNot(user.getId(), PageRequest.of(0, 10));
+        ItemRequestDtoFull cursor = all.get(0);
+
+        List<String> next = itemRequestRepository.findDtosByRequesterIdNotBefore(user.getId(), cursor.getCreated(),
+                        cursor.getId(), PageRequest.of(0, 10))
+                .stream()
+                .map(ItemRequestDtoFull::getDescription)
+                .collect(Collectors.toList());
+
+        assertThat(all.stream().map(ItemRequestDtoFull::getDescription).collect(Collectors.toList()),
+                contains("second", "first", "third"));
+        assertThat(next, contains("first", "third"));
+    }
+
+    @Test
+    public void findDtosByRequesterIdNot_withOffsetPage_shouldStartAtExactRow() {
+        List<String> page = itemRequestRepository.findDtosByRequesterIdNot(user.getId(), OffsetPageRequest.of(1, 2, Sort.unsorted()))
+                .stream()
+                .map(ItemRequestDtoFull::getDescription)
+                .collect(Collectors.toList());
+
+        assertThat(page, contains("first", "third"));
+    }
+}
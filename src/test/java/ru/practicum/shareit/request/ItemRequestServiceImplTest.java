@@ -1,8 +1,137 @@
 package ru.practicum.shareit.request;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDtoForRequest;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDtoFull;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.CursorPage;
+import ru.practicum.shareit.util.OffsetPageRequest;
+import ru.practicum.shareit.util.PageCursor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 public class ItemRequestServiceImplTest {
+    @InjectMocks
+    private ItemRequestServiceImpl itemRequestService;
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ItemRepository itemRepository;
+
+    private final User requester = new User(2L, "requester", "requester@mail.ru");
+    private final LocalDateTime now = LocalDateTime.of(2023, 11, 6, 12, 0);
+
+    @Test
+    public void getAllRequests_loadsAnswersInOneQueryAndKeepsOrder() {
+        ItemRequestDtoFull newer = new ItemRequestDtoFull(2L, "newer", now, requester.getId());
+        ItemRequestDtoFull older = new ItemRequestDtoFull(1L, "older", now.minusDays(1), requester.getId());
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(itemRequestRepository.findDtosByRequesterIdNot(eq(1L), any())).thenReturn(List.of(newer, older));
+        Mockito.when(itemRepository.findItemDtosByRequestIdIn(anyCollection())).thenReturn(List.of(
+                new ItemDtoForRequest(10L, "first", "description", true, 1L),
+                new ItemDtoForRequest(11L, "second", "description", true, 2L),
+                new ItemDtoForRequest(12L, "third", "description", true, 1L)));
+
+        List<ItemRequestDtoFull> requests = new ArrayList<>(itemRequestService.getAllRequests(1L, 0, 10));
+
+        assertThat(requests.get(0).getId(), equalTo(2L));
+        assertThat(requests.get(0).getItems().size(), equalTo(1));
+        assertThat(requests.get(1).getId(), equalTo(1L));
+        assertThat(requests.get(1).getItems().get(0).getId(), equalTo(10L));
+        assertThat(requests.get(1).getItems().get(1).getId(), equalTo(12L));
+        verify(itemRepository, times(1)).findItemDtosByRequestIdIn(Mockito.argThat(ids -> List.copyOf(ids).equals(List.of(2L, 1L))));
+        verify(itemRepository, never()).findByRequestId(anyLong());
+    }
+
+    @Test
+    public void getAllRequests_whenFromIsInsidePage_thenExactOffsetIsRequested() {
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(itemRequestRepository.findDtosByRequesterIdNot(eq(1L), any())).thenReturn(List.of());
+
+        itemRequestService.getAllRequests(1L, 5, 10);
+
+        verify(itemRequestRepository).findDtosByRequesterIdNot(1L, OffsetPageRequest.of(5, 10, Sort.unsorted()));
+    }
+
+    @Test
+    public void getAllRequestsByCursor_returnsNextCursorForFullPage() {
+        ItemRequestDtoFull first = new ItemRequestDtoFull(5L, "first", now, requester.getId());
+        ItemRequestDtoFull second = new ItemRequestDtoFull(4L, "second", now.minusHours(1), requester.getId());
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(itemRequestRepository.findDtosByRequesterIdNotBefore(eq(1L), eq(now.plusHours(1)), eq(7L), any()))
+                .thenReturn(List.of(first, second));
+
+        CursorPage<ItemRequestDtoFull> page = itemRequestService.getAllRequestsByCursor(1L,
+                new PageCursor(now.plusHours(1), 7L).encode(), 2);
+
+        assertThat(page.getNextCursor(), notNullValue());
+        PageCursor next = PageCursor.decode(page.getNextCursor());
+        assertThat(next.getDate(), equalTo(second.getCreated()));
+        assertThat(next.getId(), equalTo(4L));
+        assertThat(page.getContent().get(0).getItems().size(), equalTo(0));
+    }
+
+    @Test
+    public void getAllRequestsByCursor_lastPageHasNoCursor() {
+        ItemRequestDtoFull only = new ItemRequestDtoFull(5L, "only", now, requester.getId());
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(itemRequestRepository.findDtosByRequesterIdNot(eq(1L), any())).thenReturn(List.of(only));
+
+        CursorPage<ItemRequestDtoFull> page = itemRequestService.getAllRequestsByCursor(1L, "", 2);
+
+        assertThat(page.getNextCursor(), nullValue());
+        assertThat(page.getContent().size(), equalTo(1));
+    }
+
+    @Test
+    public void getItemRequestById_unknownRequestIsNotFound() {
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(itemRequestRepository.findDtoById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> itemRequestService.getItemRequestById(1L, 5L));
+    }
+
+    @Test
+    public void getItemRequestById_usesProjectedAnswers() {
+        ItemRequestDtoFull request = new ItemRequestDtoFull(5L, "request", now, requester.getId());
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(itemRequestRepository.findDtoById(5L)).thenReturn(Optional.of(request));
+        Mockito.when(itemRepository.findItemDtosByRequestIdIn(anyCollection()))
+                .thenReturn(List.of(new ItemDtoForRequest(10L, "item", "description", true, 5L)));
+
+        ItemRequestDtoFull dto = itemRequestService.getItemRequestById(1L, 5L);
+
+        assertThat(dto.getItems().size(), equalTo(1));
+        assertThat(dto.getItems().get(0).getRequestId(), equalTo(5L));
+    }
 }
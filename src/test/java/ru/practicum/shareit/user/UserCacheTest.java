@@ -0,0 +1,82 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class UserCacheTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void start() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void getUserById_secondReadIsServedFromCache() {
+        UserDto user = userService.createUser(new UserDto(null, "cached", "cached@mail.ru"));
+        userService.getUserById(user.getId());
+        statistics.clear();
+
+        userService.getUserById(user.getId());
+        assertThat(userRepository.findById(user.getId()).isPresent(), equalTo(true));
+
+        assertThat(statistics.getPrepareStatementCount(), equalTo(0L));
+        assertThat(statistics.getSecondLevelCacheHitCount(), equalTo(2L));
+
+        // Проверка существования - exists-запрос без загрузки сущности, повторная проверка отвечает из кэша
+        statistics.clear();
+        assertThat(userRepository.existsById(user.getId()), equalTo(true));
+        assertThat(userRepository.existsById(user.getId()), equalTo(true));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+        assertThat(statistics.getSecondLevelCacheHitCount(), equalTo(0L));
+
+        // Попадания публикуются без статистики Hibernate: из Caffeine и из статистики JCache региона User
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users.exists").tag("result", "hit")
+                .functionCounter().count(), greaterThan(0.0));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", User.class.getName()).tag("result", "hit")
+                .functionCounter().count(), greaterThan(0.0));
+        userService.deleteUser(user.getId());
+        assertThat(userRepository.existsById(user.getId()), equalTo(false));
+    }
+
+    @Test
+    public void updateAndDeleteUser_invalidateCachedUser() {
+        UserDto user = userService.createUser(new UserDto(null, "before", "before@mail.ru"));
+        userService.getUserById(user.getId());
+
+        userService.updateUser(new UserDto(null, "after", null), user.getId());
+        assertThat(userService.getUserById(user.getId()).getName(), equalTo("after"));
+
+        userService.deleteUser(user.getId());
+        statistics.clear();
+        assertThrows(NotFoundException.class, () -> userService.getUserById(user.getId()));
+        assertThat(statistics.getPrepareStatementCount(), greaterThan(0L));
+    }
+}
@@ -36,7 +36,7 @@ public class UserServiceTest {
 
     @BeforeEach
     public void prepare() {
-        userService = new UserServiceImpl(userRepository);
+        userService = new UserServiceImpl(userRepository, null);
         user = new User();
         user.setEmail("test@mail.ru");
         user.setName("test");